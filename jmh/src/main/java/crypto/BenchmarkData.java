@@ -0,0 +1,77 @@
+package crypto;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/*
+ * Reproducible inputs of the benchmarks, and the former implementations kept as reference points
+ */
+final class BenchmarkData {
+
+	private BenchmarkData() {}
+
+	/**
+	 * Generates reproducible random bytes for the benchmarks
+	 */
+	static byte[] randomBytes(int size, long seed) {
+		byte[] bytes = new byte[size];
+		new Random(seed).nextBytes(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Generates reproducible random lower case text with spaces, like the output of Helper.cleanString
+	 */
+	static byte[] randomText(int size, long seed) {
+		Random random = new Random(seed);
+		byte[] text = new byte[size];
+		for (int i = 0; i < size; i++) text[i] = (random.nextInt(6) == 0) ? Encrypt.SPACE : (byte) ('a' + random.nextInt(26));
+		return text;
+	}
+
+	/**
+	 * Generates reproducible text made of English words, so that the frequency based breakers have something to work on
+	 */
+	static byte[] randomEnglish(int size, long seed) {
+		byte[] source = Helper.stringToBytes(Helper.cleanString(Helper.readStringFromFile("text_one.txt")
+				+ " " + Helper.readStringFromFile("text_two.txt") + " " + Helper.readStringFromFile("text_three.txt")));
+		Random random = new Random(seed);
+		byte[] text = new byte[size];
+		int start = random.nextInt(source.length);
+		for (int i = 0; i < size; i++) text[i] = source[(start + i) % source.length];
+		return text;
+	}
+
+	/**
+	 * The Helper.cleanString implementation used before the lookup table, kept as a reference point
+	 */
+	static String legacyCleanString(String s) {
+		String cleaned = s.toLowerCase();
+		cleaned = cleaned.replaceAll("[:,;.]", " ");
+		return cleaned.replaceAll("[^a-z ]", "");
+	}
+
+	/**
+	 * The CBC implementation used before the one pass version, kept as a reference point.
+	 * It copies every block out of the message and goes through a list of bytes.
+	 */
+	static byte[] legacyCbc(byte[] text, byte[] iv, boolean encoding) {
+		int iterations = text.length/iv.length;
+		if (text.length % iv.length != 0) iterations++;
+
+		ArrayList<Byte> resultList = new ArrayList<>();
+		byte[][] inBlocks = new byte[iterations][iv.length];
+		byte[][] cipherBlocks = new byte[iterations][iv.length];
+		byte[] result = new byte[text.length];
+		for (int i = 0; i < iterations; i++) {
+			inBlocks[i] = Main.trim(text, (i+1)*iv.length, true);
+			inBlocks[i] = Main.trim(inBlocks[i], i*iv.length);
+			byte[] previous = (i != 0) ? (encoding ? cipherBlocks[i - 1] : inBlocks[i - 1]) : iv;
+			byte[] outBlock = Encrypt.oneTimePad(inBlocks[i], previous);
+			cipherBlocks[i] = encoding ? outBlock : inBlocks[i];
+			for (int j = 0; j < iv.length; j++) resultList.add(outBlock[j]);
+		}
+		for (int i = 0; i < text.length; i++) result[i] = resultList.get(i);
+		return result;
+	}
+}
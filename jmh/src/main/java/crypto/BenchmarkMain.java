@@ -0,0 +1,23 @@
+package crypto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Entry point of benchmarks.jar, run from the root of the project so that the texts of res/ are found :
+ * java -jar jmh/target/benchmarks.jar [JMH options] [benchmark regexp]
+ * It is the JMH command line with the gc profiler always on, so that the bytes allocated per operation
+ * (gc.alloc.rate.norm) are printed next to the time of each benchmark.
+ */
+public class BenchmarkMain {
+
+	public static void main(String[] args) throws Exception {
+		List<String> arguments = new ArrayList<>(Arrays.asList(args));
+		if (!arguments.contains("gc")) {
+			arguments.add(0, "-prof");
+			arguments.add(1, "gc");
+		}
+		org.openjdk.jmh.Main.main(arguments.toArray(new String[0]));
+	}
+}
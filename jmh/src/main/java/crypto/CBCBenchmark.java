@@ -0,0 +1,59 @@
+package crypto;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * The one pass CBC encoding and the sequential and parallel decodings,
+ * with a usual block and with a block larger than half the parallel threshold, which cannot be split
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class CBCBenchmark {
+	@Param({"1024", "16384", "1048576", "67108864"})
+	int size;
+
+	@Param({"8", "70000"})
+	int ivSize;
+
+	private byte[] iv;
+	private byte[] plainText;
+	private byte[] cipherText;
+
+	@Setup
+	public void setup() {
+		iv = BenchmarkData.randomBytes(ivSize, 1);
+		plainText = BenchmarkData.randomBytes(size, 2);
+		cipherText = Encrypt.cbc(plainText, iv);
+	}
+
+	@Benchmark
+	public byte[] encode() {
+		return Encrypt.cbc(plainText, iv);
+	}
+
+	@Benchmark
+	public byte[] decode() {
+		return Decrypt.decryptCBC(cipherText, iv);
+	}
+
+	@Benchmark
+	public byte[] decodeParallel() {
+		return Decrypt.decryptCBCParallel(cipherText, iv);
+	}
+}
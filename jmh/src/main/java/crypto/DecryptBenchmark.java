@@ -0,0 +1,107 @@
+package crypto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * The cipher breaking methods of Decrypt
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class DecryptBenchmark {
+	@Param({"256", "1024", "4096"})
+	int size;
+
+	private final byte[] key = Helper.stringToBytes("2cF%5");
+	private byte[] caesar;
+	private byte[] xor;
+	private byte[] vigenere;
+	private byte[] cbc;
+	private String caesarString;
+	private String xorString;
+	private String vigenereString;
+	private byte[] compact;
+	private int compactLength;
+	private VigenereBreaker breaker;
+
+	@Setup
+	public void setup() {
+		byte[] text = BenchmarkData.randomEnglish(size, 7);
+		caesar = Encrypt.caesar(text, key[0]);
+		xor = Encrypt.xor(text, key[0]);
+		vigenere = Encrypt.vigenere(text, key);
+		cbc = Encrypt.cbc(text, key);
+		caesarString = Helper.bytesToString(caesar);
+		xorString = Helper.bytesToString(xor);
+		vigenereString = Helper.bytesToString(vigenere);
+		compact = new byte[size];
+		compactLength = Decrypt.removeSpaces(vigenere, compact, null);
+		breaker = new VigenereBreaker();
+	}
+
+	@Benchmark
+	public String breakCipherCaesar() {
+		return Decrypt.breakCipher(caesarString, Encrypt.CAESAR);
+	}
+
+	@Benchmark
+	public String breakCipherVigenere() {
+		return Decrypt.breakCipher(vigenereString, Encrypt.VIGENERE);
+	}
+
+	@Benchmark
+	public String breakCipherXor() {
+		return Decrypt.breakCipher(xorString, Encrypt.XOR);
+	}
+
+	@Benchmark
+	public byte[][] caesarBruteForce() {
+		return Decrypt.caesarBruteForce(caesar);
+	}
+
+	@Benchmark
+	public byte[][] xorBruteForce() {
+		return Decrypt.xorBruteForce(xor);
+	}
+
+	@Benchmark
+	public List<ScoredKey> xorBruteForceTop3() {
+		return Decrypt.xorBruteForce(xor, 3);
+	}
+
+	@Benchmark
+	public int vigenereFindKeyLength() {
+		return Decrypt.vigenereFindKeyLength(Decrypt.removeSpaces(vigenere));
+	}
+
+	@Benchmark
+	public List<KeyLengthCandidate> vigenereKeyLengthCandidates() {
+		return Decrypt.vigenereKeyLengthCandidates(compact, compactLength, Decrypt.MAX_KEY_LENGTH);
+	}
+
+	@Benchmark
+	public byte[] vigenereBreaker() {
+		return breaker.breakCipher(vigenere);
+	}
+
+	@Benchmark
+	public byte[] decryptCBC() {
+		return Decrypt.decryptCBC(cbc, key);
+	}
+}
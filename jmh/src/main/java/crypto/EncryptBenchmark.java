@@ -0,0 +1,50 @@
+package crypto;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Every type of Encrypt.encrypt, across message sizes and key lengths
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class EncryptBenchmark {
+	@Param({"64", "4096", "262144"})
+	int size;
+	// the type and the key length : the key of caesar and xor is a single byte, the pad of the one time pad is as long as the message
+	@Param({"caesar", "vigenere-1", "vigenere-8", "vigenere-64", "xor", "oneTimePad", "cbc-1", "cbc-8", "cbc-64"})
+	String cipher;
+
+	private String message;
+	private String key;
+	private int type;
+
+	@Setup
+	public void setup() {
+		message = Helper.bytesToString(BenchmarkData.randomText(size, 5));
+		String[] parts = cipher.split("-");
+		type = java.util.Arrays.asList("caesar", "vigenere", "xor", "oneTimePad", "cbc").indexOf(parts[0]);
+		int length = (type == Encrypt.ONETIME) ? size : (parts.length > 1) ? Integer.parseInt(parts[1]) : 1;
+		key = Helper.bytesToString(BenchmarkData.randomBytes(length, 6));
+	}
+
+	@Benchmark
+	public String encrypt() {
+		return Encrypt.encrypt(message, key, type);
+	}
+}
@@ -0,0 +1,96 @@
+package crypto;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Compare the scalar, word and vector backends of the byte-wise ciphers, from 16 B to 64 MB.
+ * The forks run with the Vector API module, which the vector backend needs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class KernelsBenchmark {
+	@Param({"16", "256", "4096", "65536", "1048576", "16777216", "67108864"})
+	int size;
+
+	private final byte key = 5;
+	private byte[] text;
+	private byte[] pad;
+	private byte[] out;
+
+	@Setup
+	public void setup() {
+		text = BenchmarkData.randomText(size, 3);
+		pad = BenchmarkData.randomBytes(size, 4);
+		out = new byte[size];
+	}
+
+	@Benchmark
+	public byte[] caesarScalar() {
+		ByteKernels.scalarCaesar(text, 0, out, 0, size, key, false);
+		return out;
+	}
+
+	@Benchmark
+	public byte[] caesarWords() {
+		ByteKernels.wordCaesar(text, 0, out, 0, size, key, false);
+		return out;
+	}
+
+	@Benchmark
+	public byte[] caesarVector() {
+		VectorKernels.vectorCaesar(text, 0, out, 0, size, key, false);
+		return out;
+	}
+
+	@Benchmark
+	public byte[] xorScalar() {
+		ByteKernels.scalarXor(text, 0, out, 0, size, key, false);
+		return out;
+	}
+
+	@Benchmark
+	public byte[] xorWords() {
+		ByteKernels.wordXor(text, 0, out, 0, size, key, false);
+		return out;
+	}
+
+	@Benchmark
+	public byte[] xorVector() {
+		VectorKernels.vectorXor(text, 0, out, 0, size, key, false);
+		return out;
+	}
+
+	@Benchmark
+	public byte[] oneTimePadScalar() {
+		ByteKernels.scalarOneTimePad(text, 0, out, 0, size, pad, 0);
+		return out;
+	}
+
+	@Benchmark
+	public byte[] oneTimePadWords() {
+		ByteKernels.wordOneTimePad(text, 0, out, 0, size, pad, 0);
+		return out;
+	}
+
+	@Benchmark
+	public byte[] oneTimePadVector() {
+		VectorKernels.vectorOneTimePad(text, 0, out, 0, size, pad, 0);
+		return out;
+	}
+}
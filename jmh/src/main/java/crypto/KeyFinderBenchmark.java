@@ -0,0 +1,61 @@
+package crypto;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Compare caesarFindKey with CaesarKeyFinder
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class KeyFinderBenchmark {
+	@Param({"16", "256", "4096"})
+	int size;
+
+	private final CaesarKeyFinder keyFinder = new CaesarKeyFinder();
+	private final float[] scratch = new float[Decrypt.ALPHABETSIZE];
+	private byte[] cipher;
+	private int[] counts;
+
+	@Setup
+	public void setup() {
+		cipher = Encrypt.caesar(BenchmarkData.randomEnglish(size, 8), (byte) 42);
+		counts = new int[Decrypt.ALPHABETSIZE];
+		for (byte b : cipher) counts[b + 128]++;
+	}
+
+	@Benchmark
+	public byte caesarWithFrequencies() {
+		return Decrypt.caesarWithFrequencies(cipher);
+	}
+
+	@Benchmark
+	public byte caesarFindKeyScratch() {
+		return Decrypt.caesarFindKey(Decrypt.computeFrequencies(cipher), scratch);
+	}
+
+	@Benchmark
+	public byte keyFinderBytes() {
+		return keyFinder.findKey(cipher, 0, cipher.length);
+	}
+
+	@Benchmark
+	public byte keyFinderCounts() {
+		return keyFinder.findKey(counts);
+	}
+}
@@ -0,0 +1,50 @@
+package crypto;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * The block copying CBC implementation replaced by the one pass version, compare with CBCBenchmark.
+ * It is quadratic, so it only runs on the small sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class LegacyCBCBenchmark {
+	@Param({"1024", "16384"})
+	int size;
+
+	private final byte[] iv = BenchmarkData.randomBytes(8, 1);
+	private byte[] plainText;
+	private byte[] cipherText;
+
+	@Setup
+	public void setup() {
+		plainText = BenchmarkData.randomBytes(size, 2);
+		cipherText = Encrypt.cbc(plainText, iv);
+	}
+
+	@Benchmark
+	public byte[] encode() {
+		return BenchmarkData.legacyCbc(plainText, iv, true);
+	}
+
+	@Benchmark
+	public byte[] decode() {
+		return BenchmarkData.legacyCbc(cipherText, iv, false);
+	}
+}
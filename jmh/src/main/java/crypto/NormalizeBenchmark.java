@@ -0,0 +1,58 @@
+package crypto;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Compare the regular expressions of the former Helper.cleanString with the lookup table of TextNormalizer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class NormalizeBenchmark {
+	@Param({"256", "4096", "65536", "1048576"})
+	int size;
+
+	private String text;
+	private byte[] bytes;
+	private byte[] out;
+
+	@Setup
+	public void setup() {
+		String source = Helper.readStringFromFile("text_one.txt");
+		StringBuilder builder = new StringBuilder(size);
+		while (builder.length() < size) builder.append(source);
+		text = builder.substring(0, size);
+		bytes = Helper.stringToBytes(text);
+		out = new byte[size];
+	}
+
+	@Benchmark
+	public String legacyCleanString() {
+		return BenchmarkData.legacyCleanString(text);
+	}
+
+	@Benchmark
+	public String cleanString() {
+		return Helper.cleanString(text);
+	}
+
+	@Benchmark
+	public int normalizeBytes() {
+		return TextNormalizer.normalize(bytes, 0, size, out, 0);
+	}
+}
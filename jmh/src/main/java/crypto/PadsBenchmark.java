@@ -0,0 +1,70 @@
+package crypto;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Compare the pad sources with the former byte by byte generation from a shared java.util.Random
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class PadsBenchmark {
+	@Param({"16", "1024", "65536", "1048576"})
+	int size;
+
+	private final Random random = new Random();
+	private final PadSource secure = PadSource.secure();
+	private final PadSource chaCha20 = PadSource.chaCha20();
+	private final PadSource seeded = PadSource.seeded(1);
+	private byte[] pad;
+
+	@Setup
+	public void setup() {
+		pad = new byte[size];
+	}
+
+	@Benchmark
+	public byte[] legacy() {
+		for (int i = 0; i < size; i++) pad[i] = (byte) random.nextInt(256);
+		return pad;
+	}
+
+	@Benchmark
+	public byte[] secure() {
+		secure.nextBytes(pad);
+		return pad;
+	}
+
+	@Benchmark
+	public byte[] chaCha20() {
+		chaCha20.nextBytes(pad);
+		return pad;
+	}
+
+	@Benchmark
+	public byte[] seeded() {
+		seeded.nextBytes(pad);
+		return pad;
+	}
+
+	@Benchmark
+	public byte[] generatePad() {
+		return Encrypt.generatePad(size);
+	}
+}
@@ -0,0 +1,66 @@
+package crypto;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Scaling of the parallel encryption with the amount of threads, 0 threads stands for the sequential methods
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ParallelBenchmark {
+	@Param({"65536", "1048576", "16777216"})
+	int size;
+	@Param({"0", "1", "2", "4", "8"})
+	int threads;
+
+	private final byte key = 5;
+	private final byte[] keyword = BenchmarkData.randomBytes(8, 7);
+	private byte[] text;
+	private byte[] pad;
+	private ForkJoinPool pool;
+
+	@Setup
+	public void setup() {
+		text = BenchmarkData.randomText(size, 8);
+		pad = BenchmarkData.randomBytes(size, 9);
+		pool = (threads == 0) ? null : new ForkJoinPool(threads);
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (pool != null) pool.shutdown();
+	}
+
+	@Benchmark
+	public byte[] caesar() {
+		return (pool == null) ? Encrypt.caesar(text, key, false) : Encrypt.caesarParallel(text, key, false, pool);
+	}
+
+	@Benchmark
+	public byte[] vigenere() {
+		return (pool == null) ? Encrypt.vigenere(text, keyword, false) : Encrypt.vigenereParallel(text, keyword, false, pool);
+	}
+
+	@Benchmark
+	public byte[] oneTimePad() {
+		return (pool == null) ? Encrypt.oneTimePad(text, pad) : Encrypt.oneTimePadParallel(text, pad, pool);
+	}
+}
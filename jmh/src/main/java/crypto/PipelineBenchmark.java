@@ -0,0 +1,65 @@
+package crypto;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Compare a chain of Encrypt calls with the same stages fused in a CipherPipeline
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+	@Param({"256", "4096", "1048576", "16777216"})
+	int size;
+
+	private final byte key = 5;
+	private final byte[] keyword = BenchmarkData.randomBytes(8, 10);
+	private final byte[] iv = BenchmarkData.randomBytes(8, 11);
+	private final CipherPipeline tables = CipherPipeline.builder().caesar(key, false).xor(key, false).build();
+	private final CipherPipeline pipeline = CipherPipeline.builder().vigenere(keyword, false).xor(key, false).cbc(iv).build();
+	private byte[] text;
+	private byte[] out;
+
+	@Setup
+	public void setup() {
+		text = BenchmarkData.randomText(size, 12);
+		out = new byte[size];
+	}
+
+	@Benchmark
+	public byte[] caesarXorEncrypt() {
+		return Encrypt.xor(Encrypt.caesar(text, key, false), key, false);
+	}
+
+	@Benchmark
+	public byte[] caesarXorPipeline() {
+		tables.apply(text, 0, out, 0, size);
+		return out;
+	}
+
+	@Benchmark
+	public byte[] vigenereXorCBCEncrypt() {
+		return Encrypt.cbc(Encrypt.xor(Encrypt.vigenere(text, keyword, false), key, false), iv);
+	}
+
+	@Benchmark
+	public byte[] vigenereXorCBCPipeline() {
+		pipeline.apply(text, 0, out, 0, size);
+		return out;
+	}
+}
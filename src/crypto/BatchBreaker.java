@@ -0,0 +1,253 @@
+package crypto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Service breaking many cipher texts concurrently with {@link Decrypt#breakCipher(byte[], int, VigenereBreaker)}.
+ * At most maxPending jobs are taken from the input before their results have been handed to the consumer,
+ * so a large or endless input is read only as fast as it is broken. Each worker thread keeps its own
+ * {@link VigenereBreaker}, whose scratch arrays (and {@link CipherDetector} for the unlabeled messages)
+ * are reused for every message it breaks.
+ * The timeout of a job counts from the moment a worker starts it, the time spent waiting for a worker does not count.
+ * A job which times out is interrupted, the breakers check for it between key lengths and columns and stop early.
+ */
+public class BatchBreaker implements AutoCloseable {
+	private static final ThreadLocal<VigenereBreaker> SCRATCH = ThreadLocal.withInitial(VigenereBreaker::new);
+
+	private final ExecutorService workers;
+	private final ScheduledThreadPoolExecutor timer;
+	private final int maxPending;
+	private final long timeoutNanos;
+
+	/**
+	 * Creates a breaker with one worker per core, no timeout, and 4 pending jobs per worker
+	 */
+	public BatchBreaker() {
+		this(Runtime.getRuntime().availableProcessors(), 4 * Runtime.getRuntime().availableProcessors(), 0, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @param threads    the amount of worker threads
+	 * @param maxPending the maximum amount of jobs taken from the input whose result has not been consumed yet
+	 * @param timeout    the time after which a job is reported as timed out, 0 for no timeout
+	 * @param unit       the unit of the timeout
+	 */
+	public BatchBreaker(int threads, int maxPending, long timeout, TimeUnit unit) {
+		assert(threads > 0 && maxPending > 0 && timeout >= 0);
+		this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "batch-breaker");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "batch-breaker-timer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.timer.setRemoveOnCancelPolicy(true);
+		this.maxPending = maxPending;
+		this.timeoutNanos = unit.toNanos(timeout);
+	}
+
+	/**
+	 * Method breaking all the jobs of a collection
+	 * @param jobs the cipher texts to break
+	 * @return the results, in the order of the jobs
+	 */
+	public List<Result> breakAll(Collection<Job> jobs) throws InterruptedException {
+		List<Result> results = new ArrayList<>(jobs.size());
+		breakAll(jobs.iterator(), true, results::add);
+		return results;
+	}
+
+	/**
+	 * Method breaking all the jobs of a stream, which is consumed lazily
+	 * @param jobs     the cipher texts to break
+	 * @param ordered  if true, results are given in the order of the jobs, otherwise as soon as they are ready
+	 * @param consumer the code receiving the results, always called from the calling thread
+	 */
+	public void breakAll(Stream<Job> jobs, boolean ordered, Consumer<Result> consumer) throws InterruptedException {
+		breakAll(jobs.iterator(), ordered, consumer);
+	}
+
+	/**
+	 * Method breaking all the jobs given by an iterator, which is consumed lazily
+	 * @param jobs     the cipher texts to break
+	 * @param ordered  if true, results are given in the order of the jobs, otherwise as soon as they are ready
+	 * @param consumer the code receiving the results, always called from the calling thread
+	 */
+	public void breakAll(Iterator<Job> jobs, boolean ordered, Consumer<Result> consumer) throws InterruptedException {
+		BlockingQueue<Result> done = new LinkedBlockingQueue<>();
+		// results received before the ones preceding them, when ordered
+		Map<Long, Result> early = new HashMap<>();
+		long submitted = 0;
+		long consumed = 0;
+		while (jobs.hasNext()) {
+			// backpressure : wait for results before taking more jobs
+			while (submitted - consumed >= maxPending) consumed += deliver(done.take(), ordered, early, consumed, consumer);
+			start(submitted++, jobs.next(), done);
+			Result ready;
+			while ((ready = done.poll()) != null) consumed += deliver(ready, ordered, early, consumed, consumer);
+		}
+		while (consumed < submitted) consumed += deliver(done.take(), ordered, early, consumed, consumer);
+	}
+
+	/**
+	 * Helper method handing a result to the consumer, or keeping it until its predecessors are done when ordered
+	 * @return the amount of results handed to the consumer
+	 */
+	private static int deliver(Result result, boolean ordered, Map<Long, Result> early, long consumed, Consumer<Result> consumer) {
+		if (!ordered) {
+			consumer.accept(result);
+			return 1;
+		}
+		early.put(result.index(), result);
+		int delivered = 0;
+		Result next;
+		while ((next = early.remove(consumed + delivered)) != null) {
+			consumer.accept(next);
+			delivered++;
+		}
+		return delivered;
+	}
+
+	/**
+	 * Helper method starting a job on the workers, its result (or its timeout) is put once in done
+	 */
+	private void start(long index, Job job, BlockingQueue<Result> done) {
+		AtomicBoolean delivered = new AtomicBoolean();
+		AtomicReference<Future<?>> work = new AtomicReference<>();
+		FutureTask<Void> task = new FutureTask<>(() -> {
+			// the timeout starts with the job, not when it was queued
+			ScheduledFuture<?> alarm = null;
+			if (timeoutNanos > 0) {
+				alarm = timer.schedule(() -> {
+					if (delivered.compareAndSet(false, true)) {
+						// interrupts the breaker, which stops at its next check
+						work.get().cancel(true);
+						done.add(new Result(index, job, null, new TimeoutException("Job " + index + " timed out")));
+					}
+				}, timeoutNanos, TimeUnit.NANOSECONDS);
+			}
+			Result result;
+			try {
+				result = new Result(index, job, Decrypt.breakCipher(job.cipher(), job.type(), SCRATCH.get()), null);
+			} catch (RuntimeException | Error e) {
+				result = new Result(index, job, null, e);
+			}
+			if (alarm != null) alarm.cancel(false);
+			if (delivered.compareAndSet(false, true)) done.add(result);
+		}, null);
+		work.set(task);
+		workers.execute(task);
+	}
+
+	@Override
+	public void close() {
+		workers.shutdownNow();
+		timer.shutdownNow();
+	}
+
+	/**
+	 * A cipher text to break, with the type of cipher used to encode it
+	 */
+	public static final class Job {
+		private final byte[] cipher;
+		private final int type;
+
+		/**
+		 * @param cipher the byte array representing the encoded text
+		 * @param type   the method used to encode : 0 = Caesar, 1 = Vigenere, 2 = XOR
+		 */
+		public Job(byte[] cipher, int type) {
+			assert(cipher != null);
+			this.cipher = cipher;
+			this.type = type;
+		}
+
+		/**
+		 * @param cipher the encoded text
+		 * @param type   the method used to encode : 0 = Caesar, 1 = Vigenere, 2 = XOR
+		 */
+		public Job(String cipher, int type) {
+			this(Helper.stringToBytes(cipher), type);
+		}
+
+		public byte[] cipher() {
+			return cipher;
+		}
+
+		public int type() {
+			return type;
+		}
+	}
+
+	/**
+	 * The outcome of a job : either its clear text, or the error which stopped it (a TimeoutException if it timed out)
+	 */
+	public static final class Result {
+		private final long index;
+		private final Job job;
+		private final byte[] plainText;
+		private final Throwable error;
+
+		Result(long index, Job job, byte[] plainText, Throwable error) {
+			this.index = index;
+			this.job = job;
+			this.plainText = plainText;
+			this.error = error;
+		}
+
+		/**
+		 * @return the position of the job in the input
+		 */
+		public long index() {
+			return index;
+		}
+
+		public Job job() {
+			return job;
+		}
+
+		/**
+		 * @return the decoded bytes, null if the job failed
+		 */
+		public byte[] plainText() {
+			return plainText;
+		}
+
+		/**
+		 * @return the error of the job, null if it succeeded
+		 */
+		public Throwable error() {
+			return error;
+		}
+
+		public boolean isSuccess() {
+			return error == null;
+		}
+
+		public boolean isTimedOut() {
+			return error instanceof TimeoutException;
+		}
+	}
+}
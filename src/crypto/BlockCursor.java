@@ -0,0 +1,193 @@
+package crypto;
+
+/**
+ * Walks a part of a byte array in blocks of a fixed size, only moving offsets : no block is ever copied.
+ * The current block is given by its offset in the array and its length, the block modes then work on the array itself.
+ * The last block may be shorter than the others, the caller chooses if it is seen truncated (its real length)
+ * or padded up to the block size with a padding byte, which {@link #get(int)} and {@link #copyTo(byte[], int)} return
+ * past its end.
+ * <p>
+ * Like a list iterator, the cursor lies between two blocks : {@link #next()} moves forward and makes the block after it
+ * the current one, {@link #previous()} moves backward and makes the block before it the current one.
+ * Both can also move over a run of several consecutive blocks, which then becomes the current one as a whole,
+ * so that a mode whose blocks do not depend on each other handles many blocks with a single loop.
+ */
+public final class BlockCursor {
+	/**
+	 * How the last block, when it is shorter than the others, is seen
+	 */
+	public enum Tail { TRUNCATE, PAD }
+
+	private final byte[] array;
+	private final int offset;
+	private final int length;
+	private final int blockSize;
+	private final Tail tail;
+	private final byte padding;
+	private final int blockCount;
+
+	// index of the block returned by the next call to next()
+	private int cursor = 0;
+	// first block and amount of blocks of the current run
+	private int current = -1;
+	private int count = 0;
+
+	/**
+	 * Creates a cursor whose last block is truncated
+	 * @param array     the array containing the blocks
+	 * @param offset    the offset of the first block in the array
+	 * @param length    the amount of bytes walked through
+	 * @param blockSize the size of a block
+	 */
+	public BlockCursor(byte[] array, int offset, int length, int blockSize) {
+		this(array, offset, length, blockSize, Tail.TRUNCATE, (byte) 0);
+	}
+
+	/**
+	 * @param array     the array containing the blocks
+	 * @param offset    the offset of the first block in the array
+	 * @param length    the amount of bytes walked through
+	 * @param blockSize the size of a block
+	 * @param tail      if the last block is seen truncated or padded
+	 * @param padding   the byte completing a padded last block
+	 */
+	public BlockCursor(byte[] array, int offset, int length, int blockSize, Tail tail, byte padding) {
+		assert(array != null && blockSize > 0 && offset >= 0 && length >= 0 && offset + length <= array.length);
+		this.array = array;
+		this.offset = offset;
+		this.length = length;
+		this.blockSize = blockSize;
+		this.tail = tail;
+		this.padding = padding;
+		this.blockCount = (int) (((long) length + blockSize - 1) / blockSize);
+	}
+
+	/**
+	 * @return the amount of blocks, the last one being possibly partial
+	 */
+	public int blockCount() {
+		return blockCount;
+	}
+
+	public int blockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * Moves the cursor just before a block, without any current block
+	 * @param block the index of the block the next call to {@link #next()} moves to, blockCount() to go to the end
+	 */
+	public void seek(int block) {
+		assert(0 <= block && block <= blockCount);
+		cursor = block;
+		current = -1;
+		count = 0;
+	}
+
+	/**
+	 * Moves to the next block
+	 * @return false if there is no block left, the cursor then stays where it is
+	 */
+	public boolean next() {
+		return next(1);
+	}
+
+	/**
+	 * Moves over the next blocks, which become the current run
+	 * @param blocks the largest amount of blocks of the run, fewer are taken at the end
+	 * @return false if there is no block left, the cursor then stays where it is
+	 */
+	public boolean next(int blocks) {
+		if (cursor >= blockCount) return false;
+		assert(blocks > 0);
+		current = cursor;
+		count = Math.min(blocks, blockCount - cursor);
+		cursor += count;
+		return true;
+	}
+
+	/**
+	 * Moves to the previous block
+	 * @return false if the cursor is before the first block, it then stays where it is
+	 */
+	public boolean previous() {
+		return previous(1);
+	}
+
+	/**
+	 * Moves over the previous blocks, which become the current run
+	 * @param blocks the largest amount of blocks of the run, fewer are taken at the beginning
+	 * @return false if the cursor is before the first block, it then stays where it is
+	 */
+	public boolean previous(int blocks) {
+		if (cursor <= 0) return false;
+		assert(blocks > 0);
+		count = Math.min(blocks, cursor);
+		cursor -= count;
+		current = cursor;
+		return true;
+	}
+
+	/**
+	 * @return the index of the current block, the first one of the current run
+	 */
+	public int block() {
+		assert(current >= 0);
+		return current;
+	}
+
+	/**
+	 * @return the array containing the blocks
+	 */
+	public byte[] array() {
+		return array;
+	}
+
+	/**
+	 * @return the offset of the current block (or run) in the array
+	 */
+	public int offset() {
+		assert(current >= 0);
+		return offset + current * blockSize;
+	}
+
+	/**
+	 * @return the amount of bytes of the current block (or run) actually in the array,
+	 * only the last block may have less than blockSize
+	 */
+	public int length() {
+		assert(current >= 0);
+		return (int) Math.min((long) count * blockSize, length - (long) current * blockSize);
+	}
+
+	/**
+	 * @return the length of the current block (or run) as seen by the caller :
+	 * whole blocks if the tail is padded, length() otherwise
+	 */
+	public int size() {
+		return (tail == Tail.PAD) ? count * blockSize : length();
+	}
+
+	/**
+	 * @param i the index of a byte in the current block (or run), smaller than size()
+	 * @return the byte, or the padding byte past the end of a padded last block
+	 */
+	public byte get(int i) {
+		assert(0 <= i && i < size());
+		return (i < length()) ? array[offset() + i] : padding;
+	}
+
+	/**
+	 * Copies the current block (or run) as seen by the caller, with its padding if the tail is padded
+	 * @param dst    the array receiving the block
+	 * @param dstOff the offset of the block in dst
+	 * @return the amount of bytes written, size()
+	 */
+	public int copyTo(byte[] dst, int dstOff) {
+		int available = length();
+		System.arraycopy(array, offset(), dst, dstOff, available);
+		int size = size();
+		for (int i = available; i < size; i++) dst[dstOff + i] = padding;
+		return size;
+	}
+}
@@ -0,0 +1,135 @@
+package crypto;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+import static crypto.Encrypt.SPACE;
+
+/**
+ * Inner loops of the byte-wise ciphers of {@link Encrypt}.
+ * The vector backend ({@link VectorKernels}) handles a full vector of bytes at a time with the incubating Vector API,
+ * it is used when the JVM runs with --add-modules jdk.incubator.vector.
+ * Otherwise the word backend handles 8 bytes at a time inside a long (SIMD within a register) and keeps the spaces
+ * with a mask blend instead of a branch per byte. The scalar backend is the plain per-byte loop.
+ * The scalar backend is used for short ranges. The system property crypto.kernels set to "words" or "scalar"
+ * forces the word or the scalar backend everywhere.
+ */
+final class ByteKernels {
+	private static final String BACKEND = System.getProperty("crypto.kernels", "vector");
+	static final boolean WORDS_ENABLED = !"scalar".equals(BACKEND);
+	// VectorKernels is only loaded when the module is there, without it the word backend is used
+	static final boolean VECTOR_ENABLED = "vector".equals(BACKEND)
+			&& ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+	// below this length the setup of the word loop is not worth it
+	static final int WORDS_THRESHOLD = 32;
+	// below this length most of the bytes would be left to the scalar tail of the vector loop
+	static final int VECTOR_THRESHOLD = 128;
+	// below this amount of bytes, splitting the work between threads costs more than it saves, used by Encrypt and Decrypt
+	static final int PARALLEL_THRESHOLD = 1 << 16;
+
+	private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final long ONES = 0x0101010101010101L;
+	private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+	private static final long HIGH = 0x8080808080808080L;
+	private static final long SPACES = SPACE * ONES;
+
+	private ByteKernels() {}
+
+	//-----------------------Dispatch-------------------------
+
+	static void caesar(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte key, boolean spaceEncoding) {
+		if (VECTOR_ENABLED && len >= VECTOR_THRESHOLD) VectorKernels.vectorCaesar(src, srcOff, dst, dstOff, len, key, spaceEncoding);
+		else if (WORDS_ENABLED && len >= WORDS_THRESHOLD) wordCaesar(src, srcOff, dst, dstOff, len, key, spaceEncoding);
+		else scalarCaesar(src, srcOff, dst, dstOff, len, key, spaceEncoding);
+	}
+
+	static void xor(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte key, boolean spaceEncoding) {
+		if (VECTOR_ENABLED && len >= VECTOR_THRESHOLD) VectorKernels.vectorXor(src, srcOff, dst, dstOff, len, key, spaceEncoding);
+		else if (WORDS_ENABLED && len >= WORDS_THRESHOLD) wordXor(src, srcOff, dst, dstOff, len, key, spaceEncoding);
+		else scalarXor(src, srcOff, dst, dstOff, len, key, spaceEncoding);
+	}
+
+	static void oneTimePad(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte[] pad, int padOff) {
+		if (VECTOR_ENABLED && len >= VECTOR_THRESHOLD) VectorKernels.vectorOneTimePad(src, srcOff, dst, dstOff, len, pad, padOff);
+		else if (WORDS_ENABLED && len >= WORDS_THRESHOLD) wordOneTimePad(src, srcOff, dst, dstOff, len, pad, padOff);
+		else scalarOneTimePad(src, srcOff, dst, dstOff, len, pad, padOff);
+	}
+
+	//-----------------------Scalar-------------------------
+
+	static void scalarCaesar(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte key, boolean spaceEncoding) {
+		for (int i = 0; i < len; i++) {
+			byte b = src[srcOff + i];
+			if (!spaceEncoding && b == SPACE) dst[dstOff + i] = SPACE;
+			else dst[dstOff + i] = (byte) (b + key);
+		}
+	}
+
+	static void scalarXor(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte key, boolean spaceEncoding) {
+		for (int i = 0; i < len; i++) {
+			byte b = src[srcOff + i];
+			if (!spaceEncoding && b == SPACE) dst[dstOff + i] = SPACE;
+			else dst[dstOff + i] = (byte) (b ^ key);
+		}
+	}
+
+	static void scalarOneTimePad(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte[] pad, int padOff) {
+		for (int i = 0; i < len; i++) dst[dstOff + i] = (byte) (src[srcOff + i] ^ pad[padOff + i]);
+	}
+
+	//-----------------------Words-------------------------
+
+	static void wordCaesar(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte key, boolean spaceEncoding) {
+		long keys = broadcast(key);
+		long lowKeys = keys & LOW7;
+		int words = len & ~7;
+		for (int i = 0; i < words; i += 8) {
+			long word = (long) LONGS.get(src, srcOff + i);
+			// add the bytes without letting the carry of one byte flow into the next one
+			long sum = ((word & LOW7) + lowKeys) ^ ((word ^ keys) & HIGH);
+			if (!spaceEncoding) {
+				long spaces = spaceMask(word);
+				sum = (sum & ~spaces) | (word & spaces);
+			}
+			LONGS.set(dst, dstOff + i, sum);
+		}
+		scalarCaesar(src, srcOff + words, dst, dstOff + words, len - words, key, spaceEncoding);
+	}
+
+	static void wordXor(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte key, boolean spaceEncoding) {
+		long keys = broadcast(key);
+		int words = len & ~7;
+		for (int i = 0; i < words; i += 8) {
+			long word = (long) LONGS.get(src, srcOff + i);
+			long mask = spaceEncoding ? keys : keys & ~spaceMask(word);
+			LONGS.set(dst, dstOff + i, word ^ mask);
+		}
+		scalarXor(src, srcOff + words, dst, dstOff + words, len - words, key, spaceEncoding);
+	}
+
+	static void wordOneTimePad(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte[] pad, int padOff) {
+		assert(padOff + len <= pad.length);
+		int words = len & ~7;
+		for (int i = 0; i < words; i += 8)
+			LONGS.set(dst, dstOff + i, (long) LONGS.get(src, srcOff + i) ^ (long) LONGS.get(pad, padOff + i));
+		scalarOneTimePad(src, srcOff + words, dst, dstOff + words, len - words, pad, padOff + words);
+	}
+
+	/**
+	 * @return a long whose 8 bytes are all equal to b
+	 */
+	static long broadcast(byte b) {
+		return (b & 0xFFL) * ONES;
+	}
+
+	/**
+	 * @return a long with 0xFF in the bytes of word equal to SPACE, and 0x00 in the others
+	 */
+	static long spaceMask(long word) {
+		long diff = word ^ SPACES;
+		// the high bit of a byte ends up set only if the whole byte of diff is zero, no carry crosses bytes
+		long zeros = ~(((diff & LOW7) + LOW7) | diff | LOW7);
+		return (zeros >>> 7) * 0xFF;
+	}
+}
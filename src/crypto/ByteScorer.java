@@ -0,0 +1,20 @@
+package crypto;
+
+/**
+ * Scores a candidate clear text one byte at a time, higher meaning more likely to be the real clear text.
+ * Used by the scored brute force methods of {@link Decrypt}.
+ */
+public interface ByteScorer {
+
+	/**
+	 * Scores lower case letters by their frequency in English, using {@link Decrypt#ENGLISHFREQUENCIES}.
+	 * Every other byte scores 0.
+	 */
+	ByteScorer ENGLISH = plainByte -> (plainByte >= 'a' && plainByte <= 'z') ? Decrypt.ENGLISHFREQUENCIES[plainByte - 'a'] : 0;
+
+	/**
+	 * @param plainByte the value of a byte of the candidate clear text, between 0 and 255
+	 * @return the score of this byte
+	 */
+	double score(int plainByte);
+}
@@ -0,0 +1,94 @@
+package crypto;
+
+import java.util.Arrays;
+
+import static crypto.Decrypt.ALPHABETSIZE;
+import static crypto.Decrypt.ENGLISHFREQUENCIES;
+
+/**
+ * Finds Caesar keys like {@link Decrypt#caesarFindKey(float[])}, but from integer byte counts.
+ * The English frequencies are turned once into fixed point weights, and the score of all 256 shifts is built
+ * in a single cross-correlation pass over the bytes which actually occur, with integer arithmetic only :
+ * no float normalization, no wraparound test, and no allocation per call.
+ * An instance is not thread safe, each thread should use its own.
+ */
+public final class CaesarKeyFinder {
+	private static final int WEIGHT_BITS = 24;
+	// fixed point English frequencies, WEIGHTS[i] for the letter 'a' + i
+	private static final long[] WEIGHTS = new long[ENGLISHFREQUENCIES.length];
+	static {
+		for (int i = 0; i < WEIGHTS.length; i++) WEIGHTS[i] = Math.round(ENGLISHFREQUENCIES[i] * (1 << WEIGHT_BITS));
+	}
+
+	private final long[] scores = new long[ALPHABETSIZE];
+	private final int[] counts = new int[ALPHABETSIZE];
+
+	/**
+	 * Method that finds the key of a Caesar encoding from the count of each byte
+	 * @param byteCounts the amount of each byte, indexed by byte value + 128 like the frequencies of {@link Decrypt}
+	 * @return the key, as {@link Decrypt#caesarFindKey(float[])} would give it for the matching frequencies
+	 */
+	public byte findKey(int[] byteCounts) {
+		Arrays.fill(scores, 0);
+		for (int b = 0; b < ALPHABETSIZE; b++) if (byteCounts[b] != 0) correlate(b, byteCounts[b]);
+		return bestKey();
+	}
+
+	/**
+	 * Method that finds the key of a Caesar encoding from the count of each byte
+	 * @param byteCounts the amount of each byte, indexed by byte value + 128 like the frequencies of {@link Decrypt}
+	 * @return the key, as {@link Decrypt#caesarFindKey(float[])} would give it for the matching frequencies
+	 */
+	public byte findKey(long[] byteCounts) {
+		Arrays.fill(scores, 0);
+		for (int b = 0; b < ALPHABETSIZE; b++) if (byteCounts[b] != 0) correlate(b, byteCounts[b]);
+		return bestKey();
+	}
+
+	/**
+	 * Method that finds the key of a Caesar encoding, as {@link Decrypt#caesarWithFrequencies(byte[])} does
+	 * @param cipher the array containing the encoded text
+	 * @param off    the offset of the encoded text
+	 * @param len    the length of the encoded text
+	 * @return the encoding key
+	 */
+	public byte findKey(byte[] cipher, int off, int len) {
+		Arrays.fill(counts, 0);
+		for (int i = off; i < off + len; i++) counts[cipher[i] + 128]++;
+		return findKey(counts);
+	}
+
+	/**
+	 * Method that finds the key of a Caesar encoding spread over every stride bytes, such as a column of a Vigenere encoding
+	 * @param cipher the array containing the encoded text
+	 * @param off    the offset of the first byte
+	 * @param stride the distance between two bytes
+	 * @param count  the amount of bytes
+	 * @return the encoding key
+	 */
+	public byte findKey(byte[] cipher, int off, int stride, int count) {
+		Arrays.fill(counts, 0);
+		for (int j = 0, i = off; j < count; j++, i += stride) counts[cipher[i] + 128]++;
+		return findKey(counts);
+	}
+
+	/**
+	 * Helper method adding the contribution of one byte to the score of every shift :
+	 * the byte at index b is the letter i for the shift (b - i) mod 256
+	 */
+	private void correlate(int b, long count) {
+		for (int i = 0; i < WEIGHTS.length; i++) scores[(b - i) & 0xFF] += WEIGHTS[i] * count;
+	}
+
+	private byte bestKey() {
+		int highestIndex = 0;
+		long highest = 0;
+		for (int i = 0; i < ALPHABETSIZE; i++) {
+			if (scores[i] > highest) {
+				highest = scores[i];
+				highestIndex = i;
+			}
+		}
+		return (byte) (highestIndex - 97 - 128);
+	}
+}
@@ -0,0 +1,90 @@
+package crypto;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Keystream generator of the ChaCha20 stream cipher (RFC 8439), used as a fast and cryptographically strong pad source.
+ * The block counter goes on into the first word of the nonce when it wraps, like in the original ChaCha,
+ * so a generator never repeats its keystream. An instance is not thread safe, each thread should use its own.
+ */
+final class ChaCha20 {
+	static final int KEY_SIZE = 32;
+	static final int NONCE_SIZE = 12;
+	private static final int BLOCK_SIZE = 64;
+
+	private static final VarHandle INTS = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+	// "expand 32-byte k"
+	private static final int[] CONSTANTS = {0x61707865, 0x3320646e, 0x79622d32, 0x6b206574};
+
+	private final int[] state = new int[16];
+	private final int[] working = new int[16];
+	// keystream of the current block, of which the first used bytes have been given out
+	private final byte[] block = new byte[BLOCK_SIZE];
+	private int used = BLOCK_SIZE;
+
+	/**
+	 * @param key     the 32 bytes key
+	 * @param nonce   the 12 bytes nonce
+	 * @param counter the index of the first block
+	 */
+	ChaCha20(byte[] key, byte[] nonce, int counter) {
+		assert(key.length == KEY_SIZE && nonce.length == NONCE_SIZE);
+		System.arraycopy(CONSTANTS, 0, state, 0, 4);
+		for (int i = 0; i < 8; i++) state[4 + i] = (int) INTS.get(key, 4 * i);
+		state[12] = counter;
+		for (int i = 0; i < 3; i++) state[13 + i] = (int) INTS.get(nonce, 4 * i);
+	}
+
+	/**
+	 * Writes the next bytes of the keystream
+	 * @param dst the array receiving the keystream
+	 * @param off the offset of the first byte
+	 * @param len the amount of bytes
+	 */
+	void nextBytes(byte[] dst, int off, int len) {
+		// what is left of the current block first
+		int left = Math.min(len, BLOCK_SIZE - used);
+		System.arraycopy(block, used, dst, off, left);
+		used += left;
+		off += left;
+		len -= left;
+		// whole blocks straight into dst
+		for (; len >= BLOCK_SIZE; off += BLOCK_SIZE, len -= BLOCK_SIZE) generate(dst, off);
+		if (len > 0) {
+			generate(block, 0);
+			System.arraycopy(block, 0, dst, off, len);
+			used = len;
+		}
+	}
+
+	/**
+	 * Helper method writing the keystream block of the current counter, then moving the counter
+	 */
+	private void generate(byte[] out, int outOff) {
+		System.arraycopy(state, 0, working, 0, 16);
+		int[] x = working;
+		for (int round = 0; round < 10; round++) {
+			// column rounds
+			quarterRound(x, 0, 4, 8, 12);
+			quarterRound(x, 1, 5, 9, 13);
+			quarterRound(x, 2, 6, 10, 14);
+			quarterRound(x, 3, 7, 11, 15);
+			// diagonal rounds
+			quarterRound(x, 0, 5, 10, 15);
+			quarterRound(x, 1, 6, 11, 12);
+			quarterRound(x, 2, 7, 8, 13);
+			quarterRound(x, 3, 4, 9, 14);
+		}
+		for (int i = 0; i < 16; i++) INTS.set(out, outOff + 4 * i, x[i] + state[i]);
+		if (++state[12] == 0) state[13]++;
+	}
+
+	private static void quarterRound(int[] x, int a, int b, int c, int d) {
+		x[a] += x[b]; x[d] = Integer.rotateLeft(x[d] ^ x[a], 16);
+		x[c] += x[d]; x[b] = Integer.rotateLeft(x[b] ^ x[c], 12);
+		x[a] += x[b]; x[d] = Integer.rotateLeft(x[d] ^ x[a], 8);
+		x[c] += x[d]; x[b] = Integer.rotateLeft(x[b] ^ x[c], 7);
+	}
+}
@@ -0,0 +1,142 @@
+package crypto;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Channel versions of {@link CipherInputStream} and {@link CipherOutputStream}
+ */
+public final class CipherChannels {
+
+	private CipherChannels() {}
+
+	/**
+	 * Method to wrap a channel so that every byte read from it goes through a cipher
+	 * @param channel the channel providing the bytes to encode
+	 * @param cipher  the cipher applied to the bytes
+	 * @return a channel giving the encoded bytes
+	 */
+	public static ReadableByteChannel newReadableChannel(ReadableByteChannel channel, StreamCipher cipher) {
+		return newReadableChannel(channel, cipher, CipherOutputStream.DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Method to wrap a channel so that every byte read from it goes through a cipher
+	 * @param channel   the channel providing the bytes to encode
+	 * @param cipher    the cipher applied to the bytes
+	 * @param chunkSize the size of the internal buffer, used when reading into direct buffers
+	 * @return a channel giving the encoded bytes
+	 */
+	public static ReadableByteChannel newReadableChannel(ReadableByteChannel channel, StreamCipher cipher, int chunkSize) {
+		assert(channel != null && cipher != null && chunkSize > 0);
+		return new Readable(channel, cipher, chunkSize);
+	}
+
+	/**
+	 * Method to wrap a channel so that every byte written to it goes through a cipher first
+	 * @param channel the channel receiving the encoded bytes
+	 * @param cipher  the cipher applied to the bytes
+	 * @return a channel encoding the bytes written to it
+	 */
+	public static WritableByteChannel newWritableChannel(WritableByteChannel channel, StreamCipher cipher) {
+		return newWritableChannel(channel, cipher, CipherOutputStream.DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Method to wrap a channel so that every byte written to it goes through a cipher first
+	 * @param channel   the channel receiving the encoded bytes
+	 * @param cipher    the cipher applied to the bytes
+	 * @param chunkSize the size of the internal buffer
+	 * @return a channel encoding the bytes written to it
+	 */
+	public static WritableByteChannel newWritableChannel(WritableByteChannel channel, StreamCipher cipher, int chunkSize) {
+		assert(channel != null && cipher != null && chunkSize > 0);
+		return new Writable(channel, cipher, chunkSize);
+	}
+
+	private static final class Readable implements ReadableByteChannel {
+		private final ReadableByteChannel channel;
+		private final StreamCipher cipher;
+		private final ByteBuffer chunk;
+
+		Readable(ReadableByteChannel channel, StreamCipher cipher, int chunkSize) {
+			this.channel = channel;
+			this.cipher = cipher;
+			this.chunk = ByteBuffer.allocate(chunkSize);
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			if (dst.hasArray()) {
+				int start = dst.position();
+				int n = channel.read(dst);
+				if (n > 0) cipher.update(dst.array(), dst.arrayOffset() + start, n);
+				return n;
+			}
+			chunk.clear();
+			chunk.limit(Math.min(chunk.capacity(), dst.remaining()));
+			int n = channel.read(chunk);
+			if (n > 0) {
+				cipher.update(chunk.array(), 0, n);
+				chunk.flip();
+				dst.put(chunk);
+			}
+			return n;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return channel.isOpen();
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+
+	private static final class Writable implements WritableByteChannel {
+		private final WritableByteChannel channel;
+		private final StreamCipher cipher;
+		private final ByteBuffer chunk;
+
+		Writable(WritableByteChannel channel, StreamCipher cipher, int chunkSize) {
+			this.channel = channel;
+			this.cipher = cipher;
+			this.chunk = ByteBuffer.allocate(chunkSize);
+		}
+
+		@Override
+		public int write(ByteBuffer src) throws IOException {
+			int written = 0;
+			while (src.hasRemaining()) {
+				int n = Math.min(src.remaining(), chunk.capacity());
+				chunk.clear();
+				if (src.hasArray()) {
+					cipher.update(src.array(), src.arrayOffset() + src.position(), n, chunk.array(), 0);
+					src.position(src.position() + n);
+				} else {
+					src.get(chunk.array(), 0, n);
+					cipher.update(chunk.array(), 0, n);
+				}
+				chunk.limit(n);
+				// the cipher state has already moved on, so the whole chunk has to be written
+				while (chunk.hasRemaining()) channel.write(chunk);
+				written += n;
+			}
+			return written;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return channel.isOpen();
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+}
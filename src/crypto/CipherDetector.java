@@ -0,0 +1,198 @@
+package crypto;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static crypto.Decrypt.ALPHABETSIZE;
+import static crypto.Decrypt.ENGLISHFREQUENCIES;
+import static crypto.Encrypt.SPACE;
+
+/**
+ * Guesses which cryptosystem encoded a cipher text, so that unlabeled cipher texts can be broken.
+ * The byte histogram is built in a single pass, and the cheap cases are settled from it first :
+ * a Caesar or XOR encoding is recognized when the key found with the frequencies turns nearly every byte into a letter.
+ * Otherwise the spaces tell the rest apart : only the space skipping encodings keep them in place,
+ * so such a text is a Vigenere encoding, whose confidence is given by the periodicity of the text,
+ * measured with the index of coincidence of the columns (close to the English one when the key length is found).
+ * A text whose spaces were encoded looks random, which is what a One Time Pad or a CBC encoding gives,
+ * and cannot be broken.
+ * An instance is not thread safe, each thread should use its own.
+ */
+public final class CipherDetector {
+	// share of the bytes which have to decode to a letter or a space to recognize a Caesar or XOR encoding
+	public static final double LETTER_THRESHOLD = 0.95;
+	// below this share of spaces, the spaces were encoded and the text is not a Vigenere encoding of this program
+	public static final double SPACE_THRESHOLD = 0.05;
+
+	private static final double RANDOM_COINCIDENCE = 1.0 / ALPHABETSIZE;
+	private static final double ENGLISH_COINCIDENCE;
+	static {
+		double coincidence = 0;
+		for (double frequency : ENGLISHFREQUENCIES) coincidence += frequency * frequency;
+		ENGLISH_COINCIDENCE = coincidence;
+	}
+
+	private final int[] counts = new int[ALPHABETSIZE];
+	private final float[] frequencies = new float[ALPHABETSIZE];
+	private final CaesarKeyFinder keyFinder = new CaesarKeyFinder();
+	private final VigenereBreaker scratch;
+
+	public CipherDetector() {
+		this(new VigenereBreaker());
+	}
+
+	/**
+	 * @param scratch the breaker used for the periodicity and to break Vigenere encodings, owned by the calling thread
+	 */
+	public CipherDetector(VigenereBreaker scratch) {
+		assert(scratch != null);
+		this.scratch = scratch;
+	}
+
+	/**
+	 * Method to break a byte array without knowing how it was encoded
+	 * @param cipher the byte array representing the encoded text
+	 * @return the decoded bytes, or the original encoded message if it looks random
+	 */
+	public byte[] breakCipher(byte[] cipher) {
+		Detection detection = detect(cipher);
+		if (detection.type() == Encrypt.VIGENERE) {
+			// detect left the text without spaces in the breaker, and found its key length
+			return Encrypt.vigenere(cipher, scratch.findKey(scratch.compact(), scratch.length(), detection.keyLength()));
+		}
+		return detection.breakCipher(cipher, scratch);
+	}
+
+	/**
+	 * Method guessing which cryptosystem encoded a byte array
+	 * @param cipher the byte array representing the encoded text
+	 * @return the guessed type with its confidence, and the key or the key length when it was found on the way
+	 */
+	public Detection detect(byte[] cipher) {
+		assert(cipher != null);
+		Arrays.fill(counts, 0);
+		for (byte b : cipher) counts[b + 128]++;
+		int spaces = counts[SPACE + 128];
+		int letters = cipher.length - spaces;
+		if (letters == 0) return new Detection(Encrypt.CAESAR, 1, (byte) 0, 0);
+
+		// cheap cases : a single key byte
+		byte caesarKey = keyFinder.findKey(counts);
+		double caesar = (double) decodedLetters(caesarKey, false) / letters;
+		for (int i = 0; i < ALPHABETSIZE; i++) frequencies[i] = (float) counts[i] / cipher.length;
+		byte xorKey = Decrypt.xorFindKey(frequencies);
+		double xor = (double) decodedLetters(xorKey, true) / letters;
+		if (Math.max(caesar, xor) >= LETTER_THRESHOLD) {
+			return (caesar >= xor) ? new Detection(Encrypt.CAESAR, caesar, caesarKey, 0) : new Detection(Encrypt.XOR, xor, xorKey, 0);
+		}
+
+		// random bytes are a space once in 256 times, far less than a text whose spaces were kept
+		double spaceShare = (double) spaces / cipher.length;
+		if (spaceShare < SPACE_THRESHOLD) return new Detection(Encrypt.ONETIME, 1 - spaceShare / SPACE_THRESHOLD, (byte) 0, 0);
+
+		// periodicity of the text
+		scratch.load(cipher);
+		List<KeyLengthCandidate> candidates = scratch.keyLengthCandidates();
+		int keyLength = Decrypt.vigenereBestKeyLength(candidates);
+		double periodicity = 0;
+		for (KeyLengthCandidate candidate : candidates) {
+			if (candidate.length() == keyLength) periodicity = coincidenceConfidence(candidate.score());
+		}
+		return new Detection(Encrypt.VIGENERE, periodicity, (byte) 0, keyLength);
+	}
+
+	/**
+	 * Helper method counting, from the histogram, the bytes which are not spaces and decode to a letter or a space
+	 * @param key the Caesar encoding key or the XOR key
+	 */
+	private int decodedLetters(byte key, boolean xor) {
+		int decoded = 0;
+		for (int i = 0; i < ALPHABETSIZE; i++) {
+			byte b = (byte) (i - 128);
+			if (counts[i] == 0 || b == SPACE) continue;
+			byte plain = xor ? (byte) (b ^ key) : (byte) (b - key);
+			if ((plain >= 'a' && plain <= 'z') || plain == SPACE) decoded += counts[i];
+		}
+		return decoded;
+	}
+
+	/**
+	 * @return where an index of coincidence lies between random bytes (0) and English (1)
+	 */
+	private static double coincidenceConfidence(double coincidence) {
+		double confidence = (coincidence - RANDOM_COINCIDENCE) / (ENGLISH_COINCIDENCE - RANDOM_COINCIDENCE);
+		return Math.max(0, Math.min(1, confidence));
+	}
+
+	/**
+	 * The guessed cryptosystem of a cipher text. A random looking text is reported as a One Time Pad,
+	 * which a CBC encoding cannot be told apart from.
+	 */
+	public static final class Detection {
+		private final int type;
+		private final double confidence;
+		private final byte key;
+		private final int keyLength;
+
+		Detection(int type, double confidence, byte key, int keyLength) {
+			this.type = type;
+			this.confidence = confidence;
+			this.key = key;
+			this.keyLength = keyLength;
+		}
+
+		/**
+		 * @return the guessed type : 0 = Caesar, 1 = Vigenere, 2 = XOR, 3 = One time pad or CBC
+		 */
+		public int type() {
+			return type;
+		}
+
+		/**
+		 * @return how sure the guess is, between 0 and 1
+		 */
+		public double confidence() {
+			return confidence;
+		}
+
+		/**
+		 * @return the Caesar encoding key or the XOR key, 0 for the other types
+		 */
+		public byte key() {
+			return key;
+		}
+
+		/**
+		 * @return the key length of a Vigenere encoding, 0 for the other types
+		 */
+		public int keyLength() {
+			return keyLength;
+		}
+
+		/**
+		 * Method decoding a cipher text according to this guess
+		 * @param cipher  the byte array representing the encoded text
+		 * @param scratch the breaker used for a Vigenere encoding, owned by the calling thread
+		 * @return the decoded bytes, or the original encoded message if it looks random
+		 */
+		public byte[] breakCipher(byte[] cipher, VigenereBreaker scratch) {
+			switch (type) {
+				case Encrypt.CAESAR: // 0
+					return Encrypt.caesar(cipher, (byte) -key);
+				case Encrypt.VIGENERE: // 1
+					// the key length is already known, only the key is left to find
+					scratch.load(cipher);
+					return Encrypt.vigenere(cipher, scratch.findKey(scratch.compact(), scratch.length(), keyLength));
+				case Encrypt.XOR: // 2
+					return Encrypt.xor(cipher, key);
+				default:
+					return cipher;
+			}
+		}
+
+		@Override
+		public String toString() {
+			return type + " (" + confidence + ")";
+		}
+	}
+}
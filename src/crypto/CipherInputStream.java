@@ -0,0 +1,67 @@
+package crypto;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream encoding (or decoding) the bytes read from the underlying stream with a {@link StreamCipher}.
+ * The bytes are processed directly in the buffer given by the caller, no extra memory is used.
+ */
+public class CipherInputStream extends FilterInputStream {
+	private final StreamCipher cipher;
+	// buffer of read(), kept so that reading byte by byte does not allocate
+	private final byte[] single = new byte[1];
+
+	/**
+	 * @param in     the stream providing the bytes to encode
+	 * @param cipher the cipher applied to the bytes
+	 */
+	public CipherInputStream(InputStream in, StreamCipher cipher) {
+		super(in);
+		assert(cipher != null);
+		this.cipher = cipher;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = in.read();
+		if (b == -1) return -1;
+		single[0] = (byte) b;
+		cipher.update(single, 0, 1);
+		return single[0] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int n = in.read(b, off, len);
+		if (n > 0) cipher.update(b, off, n);
+		return n;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		// skipped bytes would desynchronize the cipher state, so they are read and dropped
+		byte[] scratch = new byte[(int) Math.min(n, CipherOutputStream.DEFAULT_CHUNK_SIZE)];
+		long skipped = 0;
+		while (skipped < n) {
+			int read = read(scratch, 0, (int) Math.min(n - skipped, scratch.length));
+			if (read < 0) break;
+			skipped += read;
+		}
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		throw new IOException("mark/reset not supported");
+	}
+}
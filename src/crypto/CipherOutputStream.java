@@ -0,0 +1,55 @@
+package crypto;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream encoding (or decoding) everything written to it with a {@link StreamCipher}
+ * before passing it to the underlying stream. Data goes through a fixed size buffer,
+ * so the memory used does not depend on the size of the message.
+ */
+public class CipherOutputStream extends FilterOutputStream {
+	public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+	private final StreamCipher cipher;
+	private final byte[] chunk;
+
+	/**
+	 * @param out    the stream receiving the encoded bytes
+	 * @param cipher the cipher applied to the bytes
+	 */
+	public CipherOutputStream(OutputStream out, StreamCipher cipher) {
+		this(out, cipher, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * @param out       the stream receiving the encoded bytes
+	 * @param cipher    the cipher applied to the bytes
+	 * @param chunkSize the size of the internal buffer
+	 */
+	public CipherOutputStream(OutputStream out, StreamCipher cipher, int chunkSize) {
+		super(out);
+		assert(cipher != null && chunkSize > 0);
+		this.cipher = cipher;
+		this.chunk = new byte[chunkSize];
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		chunk[0] = (byte) b;
+		cipher.update(chunk, 0, 1);
+		out.write(chunk, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			int n = Math.min(len, chunk.length);
+			cipher.update(b, off, n, chunk, 0);
+			out.write(chunk, 0, n);
+			off += n;
+			len -= n;
+		}
+	}
+}
@@ -0,0 +1,368 @@
+package crypto;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static crypto.Encrypt.SPACE;
+
+/**
+ * Chain of ciphers of {@link Encrypt} applied one after the other, in a single pass over the message
+ * instead of one pass and one new array per cipher.
+ * The message goes through the stages in tiles small enough to stay in the L1 cache : each stage runs its own loop
+ * over the tile while it is in the cache, so the message is only read and written once from memory,
+ * and no intermediate array is allocated. Consecutive Caesar and XOR stages only depend on the value of each byte,
+ * so a long run of them is compiled into a single lookup table of 256 entries.
+ * A CBC stage can only come last, it then chains each block of the tile once the other stages are done with it.
+ * The result is exactly the one of the corresponding Encrypt methods called one after the other,
+ * and {@link #inverse()} gives the pipeline decoding it.
+ */
+public final class CipherPipeline {
+	// small enough for the tile to stay in the L1 cache between the stages
+	private static final int TILE_SIZE = 1 << 12;
+	// a table lookup costs about as much as 3 vectorized Caesar or XOR loops, so shorter runs keep their loops
+	private static final int TABLE_MIN_STAGES = 3;
+
+	// kinds of the compiled byte-wise stages, a single Caesar or XOR keeps its vectorized kernel
+	private static final int CAESAR = 0;
+	private static final int XOR = 1;
+	private static final int TABLE = 2;
+	private static final int VIGENERE = 3;
+	private static final int PAD = 4;
+
+	// stages as they were given to the builder, to build the inverse pipeline
+	private final List<Stage> stages;
+	private final boolean decoding;
+
+	private final int[] kinds;
+	// the key, lookup table, keyword or pad of each compiled stage
+	private final byte[][] keys;
+	private final boolean[] spaceEncodings;
+	// iv of the CBC stage, last when encoding and first when decoding, or null
+	private final byte[] iv;
+
+	private CipherPipeline(List<Stage> stages, boolean decoding) {
+		this.stages = stages;
+		this.decoding = decoding;
+		List<Stage> byteWise = new ArrayList<>();
+		byte[] cbcIv = null;
+		for (Stage stage : stages) {
+			if (stage.type == Encrypt.CBC) cbcIv = stage.key;
+			// a decoding pipeline undoes the stages from the last one
+			else if (decoding) byteWise.add(0, stage.inverse());
+			else byteWise.add(stage);
+		}
+		this.iv = cbcIv;
+
+		List<Stage> compiled = new ArrayList<>();
+		for (int i = 0; i < byteWise.size(); i++) {
+			int end = i;
+			while (end < byteWise.size() && byteWise.get(end).dependsOnValueOnly()) end++;
+			if (end - i >= TABLE_MIN_STAGES) {
+				byte[] table = identity();
+				for (Stage stage : byteWise.subList(i, end)) stage.compose(table);
+				compiled.add(new Stage(TABLE, table, true));
+				i = end - 1;
+			} else {
+				Stage stage = byteWise.get(i);
+				compiled.add(new Stage(kind(stage.type), stage.key, stage.spaceEncoding));
+			}
+		}
+		this.kinds = new int[compiled.size()];
+		this.keys = new byte[compiled.size()][];
+		this.spaceEncodings = new boolean[compiled.size()];
+		for (int s = 0; s < kinds.length; s++) {
+			kinds[s] = compiled.get(s).type;
+			keys[s] = compiled.get(s).key;
+			spaceEncodings[s] = compiled.get(s).spaceEncoding;
+		}
+	}
+
+	/**
+	 * Method to start building a pipeline, the stages are applied in the order they are added
+	 * @return a new builder, without any stage
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Method to get the pipeline decoding the messages encoded by this one, or encoding the ones decoded by this one.
+	 * Like the methods of {@link Decrypt}, a stage which does not encode the spaces cannot be undone
+	 * when it has turned a letter into a space.
+	 * @return the inverse pipeline
+	 */
+	public CipherPipeline inverse() {
+		return new CipherPipeline(stages, !decoding);
+	}
+
+	/**
+	 * Method to run the whole pipeline on a message
+	 * @param text the byte array representing the message
+	 * @return the result of all the stages, in a new array
+	 */
+	public byte[] apply(byte[] text) {
+		assert(text != null);
+		byte[] result = new byte[text.length];
+		apply(text, 0, result, 0, text.length);
+		return result;
+	}
+
+	/**
+	 * Method to run the whole pipeline on a message stored in a part of an array, into a caller supplied array.
+	 * src and dst may be the same array to work in place.
+	 * @param src    the array containing the message
+	 * @param srcOff the offset of the first byte of the message
+	 * @param dst    the array receiving the result
+	 * @param dstOff the offset of the first byte of the result in dst
+	 * @param len    the length of the message
+	 */
+	public void apply(byte[] src, int srcOff, byte[] dst, int dstOff, int len) {
+		stream().update(src, srcOff, len, dst, dstOff);
+	}
+
+	/**
+	 * Method to create a stream running the pipeline on a message given in chunks of any size,
+	 * for instance to use it with {@link CipherOutputStream} or {@link FileCipher}
+	 * @return a new stream cipher, starting at the beginning of the keys
+	 */
+	public StreamCipher stream() {
+		return new Run();
+	}
+
+	//-----------------------Builder-------------------------
+
+	/**
+	 * Builder adding the stages of a pipeline one by one, with the same parameters as the methods of {@link Encrypt}
+	 */
+	public static final class Builder {
+		private final List<Stage> stages = new ArrayList<>();
+		private boolean closed = false;
+
+		private Builder() {}
+
+		/**
+		 * Adds a Caesar stage, as {@link Encrypt#caesar(byte[], byte, boolean)}
+		 * @param key           the byte corresponding to the char we use to shift
+		 * @param spaceEncoding if false, then spaces are not encoded
+		 * @return this builder
+		 */
+		public Builder caesar(byte key, boolean spaceEncoding) {
+			return add(new Stage(Encrypt.CAESAR, new byte[] {key}, spaceEncoding));
+		}
+
+		/**
+		 * Adds a XOR stage, as {@link Encrypt#xor(byte[], byte, boolean)}
+		 * @param key           the byte we will use to XOR
+		 * @param spaceEncoding if false, then spaces are not encoded
+		 * @return this builder
+		 */
+		public Builder xor(byte key, boolean spaceEncoding) {
+			return add(new Stage(Encrypt.XOR, new byte[] {key}, spaceEncoding));
+		}
+
+		/**
+		 * Adds a Vigenere stage, as {@link Encrypt#vigenere(byte[], byte[], boolean)}
+		 * @param keyword       the byte array representing the key used to perform the shift
+		 * @param spaceEncoding if false, then spaces are not encoded and do not consume the keyword
+		 * @return this builder
+		 */
+		public Builder vigenere(byte[] keyword, boolean spaceEncoding) {
+			assert(keyword != null && keyword.length > 0);
+			return add(new Stage(Encrypt.VIGENERE, keyword.clone(), spaceEncoding));
+		}
+
+		/**
+		 * Adds a One Time Pad stage, as {@link Encrypt#oneTimePad(byte[], byte[])}
+		 * @param pad the one time pad, at least as long as the messages given to the pipeline
+		 * @return this builder
+		 */
+		public Builder oneTimePad(byte[] pad) {
+			assert(pad != null);
+			return add(new Stage(Encrypt.ONETIME, pad.clone(), true));
+		}
+
+		/**
+		 * Adds the CBC stage, as {@link Encrypt#cbc(byte[], byte[])}. It has to be the last stage of the pipeline.
+		 * @param iv the pad of size BLOCKSIZE we use to start the chain encoding
+		 * @return this builder
+		 */
+		public Builder cbc(byte[] iv) {
+			assert(iv != null && iv.length > 0);
+			add(new Stage(Encrypt.CBC, iv.clone(), true));
+			closed = true;
+			return this;
+		}
+
+		/**
+		 * @return the pipeline of the stages added so far
+		 */
+		public CipherPipeline build() {
+			return new CipherPipeline(new ArrayList<>(stages), false);
+		}
+
+		private Builder add(Stage stage) {
+			if (closed) throw new IllegalStateException("The CBC stage has to be the last stage of the pipeline");
+			stages.add(stage);
+			return this;
+		}
+	}
+
+	//-----------------------Implementations-------------------------
+
+	/**
+	 * One cipher of the pipeline : its type (the constants of Encrypt, or the kind of stage once compiled),
+	 * its key and whether it encodes the spaces
+	 */
+	private static final class Stage {
+		private final int type;
+		private final byte[] key;
+		private final boolean spaceEncoding;
+
+		Stage(int type, byte[] key, boolean spaceEncoding) {
+			this.type = type;
+			this.key = key;
+			this.spaceEncoding = spaceEncoding;
+		}
+
+		/**
+		 * @return the stage decoding this one, as done by the methods of Decrypt
+		 */
+		Stage inverse() {
+			switch (type) {
+				case Encrypt.CAESAR:
+					return new Stage(type, new byte[] {(byte) -key[0]}, spaceEncoding);
+				case Encrypt.VIGENERE:
+					byte[] inverseKey = new byte[key.length];
+					for (int i = 0; i < key.length; i++) inverseKey[i] = (byte) -key[i];
+					return new Stage(type, inverseKey, spaceEncoding);
+				default:
+					// XOR and the One Time Pad are their own inverse
+					return this;
+			}
+		}
+
+		/**
+		 * @return true for the Caesar and XOR stages, which encode a byte the same way wherever it is in the message
+		 */
+		boolean dependsOnValueOnly() {
+			return type == Encrypt.CAESAR || type == Encrypt.XOR;
+		}
+
+		/**
+		 * Applies this Caesar or XOR stage after the ones already in a lookup table
+		 */
+		void compose(byte[] table) {
+			for (int b = 0; b < table.length; b++) {
+				byte in = table[b];
+				if (!spaceEncoding && in == SPACE) continue;
+				table[b] = (type == Encrypt.CAESAR) ? (byte) (in + key[0]) : (byte) (in ^ key[0]);
+			}
+		}
+	}
+
+	/**
+	 * @return the kind of compiled stage of a type of Encrypt
+	 */
+	private static int kind(int type) {
+		switch (type) {
+			case Encrypt.CAESAR:
+				return CAESAR;
+			case Encrypt.XOR:
+				return XOR;
+			case Encrypt.VIGENERE:
+				return VIGENERE;
+			default:
+				return PAD;
+		}
+	}
+
+	/**
+	 * @return the lookup table leaving every byte unchanged
+	 */
+	private static byte[] identity() {
+		byte[] table = new byte[256];
+		for (int b = 0; b < table.length; b++) table[b] = (byte) b;
+		return table;
+	}
+
+	/**
+	 * Run of the pipeline on one message, keeping the positions in the keys from one chunk to the next
+	 */
+	private final class Run extends StreamCipher {
+		// index in the keyword of each Vigenere stage
+		private final int[] keyIndices = new int[kinds.length];
+		// position in the message of the next byte, which is also its position in the pads
+		private int position = 0;
+		// CBC stage, which keeps the last cipher block from one tile to the next
+		private final StreamCipher cbc = (iv == null) ? null : decoding ? StreamCipher.decryptCBC(iv) : StreamCipher.cbc(iv);
+		// copy of a tile of a direct buffer, created on first use
+		private byte[] tile;
+
+		@Override
+		public void update(byte[] src, int srcOff, int len, byte[] dst, int dstOff) {
+			for (int done = 0; done < len; done += TILE_SIZE) {
+				int n = Math.min(TILE_SIZE, len - done);
+				process(src, srcOff + done, dst, dstOff + done, n);
+			}
+		}
+
+		@Override
+		public void update(ByteBuffer src, ByteBuffer dst) {
+			int len = src.remaining();
+			int srcPos = src.position();
+			int dstPos = dst.position();
+			if (src.hasArray() && dst.hasArray()) {
+				update(src.array(), src.arrayOffset() + srcPos, len, dst.array(), dst.arrayOffset() + dstPos);
+			} else {
+				if (tile == null) tile = new byte[TILE_SIZE];
+				for (int done = 0; done < len; done += TILE_SIZE) {
+					int n = Math.min(TILE_SIZE, len - done);
+					src.get(srcPos + done, tile, 0, n);
+					process(tile, 0, tile, 0, n);
+					dst.put(dstPos + done, tile, 0, n);
+				}
+			}
+			dst.position(dstPos + len);
+			src.position(srcPos + len);
+		}
+
+		/**
+		 * Helper method taking a tile through every stage, the first stage reads src and the next ones work in dst
+		 */
+		private void process(byte[] src, int srcOff, byte[] dst, int dstOff, int n) {
+			byte[] in = src;
+			int inOff = srcOff;
+			if (cbc != null && decoding) {
+				cbc.update(src, srcOff, n, dst, dstOff);
+				in = dst;
+				inOff = dstOff;
+			}
+			for (int s = 0; s < kinds.length; s++) {
+				byte[] key = keys[s];
+				switch (kinds[s]) {
+					case CAESAR:
+						Encrypt.caesar(in, inOff, dst, dstOff, n, key[0], spaceEncodings[s]);
+						break;
+					case XOR:
+						Encrypt.xor(in, inOff, dst, dstOff, n, key[0], spaceEncodings[s]);
+						break;
+					case TABLE:
+						for (int i = 0; i < n; i++) dst[dstOff + i] = key[in[inOff + i] & 0xFF];
+						break;
+					case VIGENERE:
+						keyIndices[s] = Encrypt.vigenere(in, inOff, dst, dstOff, n, key, keyIndices[s], spaceEncodings[s]);
+						break;
+					case PAD:
+						Encrypt.oneTimePad(in, inOff, dst, dstOff, n, key, position);
+						break;
+				}
+				in = dst;
+				inOff = dstOff;
+			}
+			if (in != dst || inOff != dstOff) System.arraycopy(in, inOff, dst, dstOff, n);
+			position += n;
+			if (cbc != null && !decoding) cbc.update(dst, dstOff, n);
+		}
+	}
+}
@@ -1,37 +1,65 @@
 package crypto;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import static crypto.ByteKernels.PARALLEL_THRESHOLD;
 import static crypto.Encrypt.SPACE;
 
 public class Decrypt {
 	public static final int ALPHABETSIZE = Byte.MAX_VALUE - Byte.MIN_VALUE + 1 ; //256
 	public static final int APOSITION = 97 + ALPHABETSIZE/2; 
+	// longest Vigenere key tried by default, and how close to the best score a shorter key length has to be to be preferred
+	public static final int MAX_KEY_LENGTH = 32;
+	public static final double KEY_LENGTH_TOLERANCE = 0.8;
+	// type asking breakCipher to guess the cryptosystem with a CipherDetector
+	public static final int AUTO = -1;
 	
 	//source : https://en.wikipedia.org/wiki/Letter_frequency
 	public static final double[] ENGLISHFREQUENCIES = {0.08497,0.01492,0.02202,0.04253,0.11162,0.02228,0.02015,0.06094,0.07546,0.00153,0.01292,0.04025,0.02406,0.06749,0.07507,0.01929,0.00095,0.07587,0.06327,0.09356,0.02758,0.00978,0.0256,0.0015,0.01994,0.00077};
 	
 	/**
 	 * Method to break a string encoded with different types of cryptosystems
-	 * @param type the integer representing the method to break : 0 = Caesar, 1 = Vigenere, 2 = XOR
+	 * @param type the integer representing the method to break : 0 = Caesar, 1 = Vigenere, 2 = XOR, -1 = guess it
 	 * @return the decoded string or the original encoded message if type is not in the list above.
+	 * Every type is broken with frequencies, use {@link #xorBruteForce(byte[])} to get all the XOR possibilities.
 	 */
 	public static String breakCipher(String cipher, int type) {
 		byte[] cipherBytes = Helper.stringToBytes(cipher);
-		String result = cipher;
+		return Helper.bytesToString(breakCipher(cipherBytes, type, new VigenereBreaker()));
+	}
+
+	/**
+	 * Method to break a byte array encoded with different types of cryptosystems,
+	 * reusing the scratch arrays of a breaker instead of allocating them.
+	 * It stops with a CancellationException if the calling thread is interrupted.
+	 * @param cipher  the byte array representing the encoded text
+	 * @param type    the integer representing the method to break : 0 = Caesar, 1 = Vigenere, 2 = XOR, -1 = guess it
+	 * @param scratch the breaker whose frequency arrays are used, owned by the calling thread
+	 * @return the decoded bytes or the original encoded message if type is not in the list above.
+	 */
+	public static byte[] breakCipher(byte[] cipher, int type, VigenereBreaker scratch) {
+		byte[] result = cipher;
 		switch (type) {
 			case Encrypt.CAESAR: // 0
-				byte decodingKey = caesarWithFrequencies(cipherBytes);
-				result = Helper.bytesToString(Encrypt.caesar(cipherBytes, (byte) (-decodingKey)));
+				byte decodingKey = scratch.caesarKey(cipher);
+				result = Encrypt.caesar(cipher, (byte) (-decodingKey));
 				break;
 			case Encrypt.VIGENERE: // 1
-				result = Helper.bytesToString(vigenereWithFrequencies(cipherBytes));
+				result = scratch.breakCipher(cipher);
 				break;
 			case Encrypt.XOR: // 2
-				result = arrayToString(xorBruteForce(cipherBytes));
+				result = Encrypt.xor(cipher, scratch.xorKey(cipher));
+				break;
+			case AUTO: // -1
+				result = scratch.detector().breakCipher(cipher);
 				break;
 		}
 		return result;
@@ -63,6 +91,28 @@ public class Decrypt {
 		return results; 
 	}
 	
+	/**
+	 * Method to decode a byte array encoded using the Caesar scheme, keeping only the best keys.
+	 * Each key is scored on the fly without decoding the message, so no candidate clear text is allocated.
+	 * @param cipher the byte array representing the encoded text
+	 * @param k      the amount of keys to keep
+	 * @return the k best keys, from the best to the worst
+	 */
+	public static List<ScoredKey> caesarBruteForce(byte[] cipher, int k) {
+		return caesarBruteForce(cipher, k, ByteScorer.ENGLISH);
+	}
+
+	/**
+	 * Method to decode a byte array encoded using the Caesar scheme, keeping only the best keys according to a scorer
+	 * @param cipher the byte array representing the encoded text
+	 * @param k      the amount of keys to keep
+	 * @param scorer the scorer of the candidate clear texts
+	 * @return the k best keys, from the best to the worst
+	 */
+	public static List<ScoredKey> caesarBruteForce(byte[] cipher, int k, ByteScorer scorer) {
+		return scoredBruteForce(cipher, k, scorer, Encrypt.CAESAR);
+	}
+
 	/**
 	 * Method that finds the key to decode a Caesar encoding by comparing frequencies
 	 * @param cipherText the byte array representing the encoded text
@@ -73,6 +123,28 @@ public class Decrypt {
 		return caesarFindKey(frequencies);
 	}
 	
+	/**
+	 * Method that finds the key to decode a Caesar encoding by scoring every possible clear text with a language model.
+	 * With a bigram or quadgram model this is much more reliable than the frequencies on short texts.
+	 * @param cipherText the byte array representing the encoded text
+	 * @param model      the language model scoring the candidate clear texts
+	 * @return the encoding key, like {@link #caesarWithFrequencies(byte[])}
+	 */
+	public static byte caesarWithModel(byte[] cipherText, LanguageModel model) {
+		byte[] candidate = new byte[cipherText.length];
+		int bestKey = 0;
+		double bestScore = Double.NEGATIVE_INFINITY;
+		for (int key = 0; key < ALPHABETSIZE; key++) {
+			Encrypt.caesar(cipherText, 0, candidate, 0, cipherText.length, (byte) -key, false);
+			double score = model.score(candidate);
+			if (score > bestScore) {
+				bestScore = score;
+				bestKey = key;
+			}
+		}
+		return (byte) bestKey;
+	}
+
 	/**
 	 * Method that computes the frequencies of letters inside a byte array corresponding to a String
 	 * @param cipherText the byte array 
@@ -101,8 +173,19 @@ public class Decrypt {
 	 * @return the key
 	 */
 	public static byte caesarFindKey(float[] charFrequencies) {
+		return caesarFindKey(charFrequencies, new float[ALPHABETSIZE]);
+	}
+
+	/**
+	 * Method that finds the key used by a  Caesar encoding from an array of character frequencies,
+	 * using a caller supplied scratch array instead of allocating one
+	 * @param charFrequencies the array of character frequencies
+	 * @param iterations      a scratch array of ALPHABETSIZE floats, overwritten
+	 * @return the key
+	 */
+	public static byte caesarFindKey(float[] charFrequencies, float[] iterations) {
 		// frequencies analysis
-		float[] iterations = new float[ALPHABETSIZE];
+		Arrays.fill(iterations, 0);
 		for (int i = 0; i < 26; i++) {
 			for (int j = 0; j < ALPHABETSIZE; j++) {
 				int index = i + j;
@@ -137,6 +220,113 @@ public class Decrypt {
 		return results;
 	}
 
+	/**
+	 * Method to decode a byte array encoded using a XOR, keeping only the best keys.
+	 * Each key is scored on the fly without decoding the message, so no candidate clear text is allocated.
+	 * @param cipher the byte array representing the encoded text
+	 * @param k      the amount of keys to keep
+	 * @return the k best keys, from the best to the worst
+	 */
+	public static List<ScoredKey> xorBruteForce(byte[] cipher, int k) {
+		return xorBruteForce(cipher, k, ByteScorer.ENGLISH);
+	}
+
+	/**
+	 * Method to decode a byte array encoded using a XOR, keeping only the best keys according to a scorer
+	 * @param cipher the byte array representing the encoded text
+	 * @param k      the amount of keys to keep
+	 * @param scorer the scorer of the candidate clear texts
+	 * @return the k best keys, from the best to the worst
+	 */
+	public static List<ScoredKey> xorBruteForce(byte[] cipher, int k, ByteScorer scorer) {
+		return scoredBruteForce(cipher, k, scorer, Encrypt.XOR);
+	}
+
+	/**
+	 * Helper method scoring the 256 keys of a Caesar or XOR cipher text and keeping the k best ones.
+	 * Spaces are not encoded by these ciphers, so they are skipped : they score the same for every key.
+	 */
+	private static List<ScoredKey> scoredBruteForce(byte[] cipher, int k, ByteScorer scorer, int type) {
+		assert(cipher != null && k >= 0);
+		// every occurrence of a cipher byte decodes to the same clear byte, so scoring the 256 bins is enough
+		int[] counts = new int[ALPHABETSIZE];
+		for (byte b : cipher) counts[b + 128]++;
+		List<ScoredKey> keys = new ArrayList<>(ALPHABETSIZE);
+		for (int key = 0; key < ALPHABETSIZE; key++) {
+			double score = 0;
+			for (int i = 0; i < ALPHABETSIZE; i++) {
+				byte b = (byte) (i - 128);
+				if (counts[i] == 0 || b == SPACE) continue;
+				int plain = (type == Encrypt.CAESAR) ? b + key : b ^ key;
+				score += counts[i] * scorer.score(plain & 0xFF);
+			}
+			keys.add(new ScoredKey(type, (byte) key, score));
+		}
+		Collections.sort(keys);
+		return new ArrayList<>(keys.subList(0, Math.min(k, keys.size())));
+	}
+
+	/**
+	 * Method that finds the key of a XOR encoding by comparing frequencies, like {@link #caesarWithFrequencies(byte[])}.
+	 * The frequencies are computed once, then every key is scored by permuting them,
+	 * so this runs in O(n + 256 * 26) instead of decoding the message 256 times.
+	 * @param cipherText the byte array representing the encoded text
+	 * @return the key, which also decodes the message
+	 */
+	public static byte xorWithFrequencies(byte[] cipherText) {
+		float[] frequencies = computeFrequencies(cipherText);
+		return xorFindKey(frequencies);
+	}
+
+	/**
+	 * Method that finds the key used by a XOR encoding from the count of each byte of the cipher text,
+	 * which gives the same key as the frequencies without dividing by the length
+	 * @param counts the amount of each byte in the cipher text, indexed by byte value + 128
+	 * @return the key
+	 */
+	public static byte xorFindKey(int[] counts) {
+		int highestKey = 0;
+		double highest = 0;
+		for (int key = 0; key < ALPHABETSIZE; key++) {
+			double score = 0;
+			for (int i = 0; i < 26; i++) {
+				int cipherByte = (byte) (('a' + i) ^ key);
+				// spaces are not encoded, so a space in the cipher text never comes from a letter
+				if (cipherByte == SPACE) continue;
+				score += ENGLISHFREQUENCIES[i] * counts[cipherByte + 128];
+			}
+			if (score > highest) {
+				highest = score;
+				highestKey = key;
+			}
+		}
+		return (byte) highestKey;
+	}
+
+	/**
+	 * Method that finds the key used by a XOR encoding from an array of character frequencies
+	 * @param charFrequencies the array of character frequencies, indexed by byte value + 128
+	 * @return the key
+	 */
+	public static byte xorFindKey(float[] charFrequencies) {
+		int highestKey = 0;
+		float highest = 0;
+		for (int key = 0; key < ALPHABETSIZE; key++) {
+			float score = 0;
+			for (int i = 0; i < 26; i++) {
+				int cipherByte = (byte) (('a' + i) ^ key);
+				// spaces are not encoded, so a space in the cipher text never comes from a letter
+				if (cipherByte == SPACE) continue;
+				score += ENGLISHFREQUENCIES[i] * charFrequencies[cipherByte + 128];
+			}
+			if (score > highest) {
+				highest = score;
+				highestKey = key;
+			}
+		}
+		return (byte) highestKey;
+	}
+
 	//-----------------------Vigenere-------------------------
 	// Algorithm : see  https://www.youtube.com/watch?v=LaWp_Kq0cKs	
 	/**
@@ -146,9 +336,18 @@ public class Decrypt {
 	 * @return the byte encoding of the clear text
 	 */
 	public static byte[] vigenereWithFrequencies(byte[] cipher) {
-		int keyLength = vigenereFindKeyLength(removeSpaces(cipher));
-		byte[] key = vigenereFindKey(removeSpaces(cipher), keyLength);
-		return Encrypt.vigenere(cipher, key);
+		return new VigenereBreaker().breakCipher(cipher);
+	}
+
+	/**
+	 * Method to decode a byte array encoded following the Vigenere pattern, trying the best candidate key lengths
+	 * in parallel instead of a single one, and keeping the clear text with the best English quadgram score
+	 * @param cipher     the byte array representing the encoded text
+	 * @param candidates the amount of key lengths tried
+	 * @return the byte encoding of the clear text
+	 */
+	public static byte[] vigenereWithCandidates(byte[] cipher, int candidates) {
+		return new VigenereBreaker().breakCipher(cipher, candidates, LanguageModel.english(4));
 	}
 
 	/**
@@ -163,6 +362,24 @@ public class Decrypt {
 		return cipher;
 	}
 
+	/**
+	 * Helper Method used to remove the space character in a byte array, without boxing
+	 * @param array     the array to clean
+	 * @param cleaned   the array receiving the bytes which are not spaces, at least as long as array
+	 * @param positions if not null, receives for each byte of cleaned its index in array
+	 * @return the amount of bytes written in cleaned
+	 */
+	public static int removeSpaces(byte[] array, byte[] cleaned, int[] positions) {
+		int length = 0;
+		for (int i = 0; i < array.length; i++) {
+			if (array[i] != SPACE) {
+				if (positions != null) positions[length] = i;
+				cleaned[length++] = array[i];
+			}
+		}
+		return length;
+	}
+
 	/**
 	 * Method that computes the key length for a Vigenere cipher text.
 	 * @param cipher the byte array representing the encoded text without space
@@ -212,6 +429,85 @@ public class Decrypt {
 		} else return maximumsIndex.get(0) + 1;
 	}
 
+	/**
+	 * Method that ranks the possible lengths of a Vigenere key using the index of coincidence.
+	 * For the right length, each column of the cipher text is a Caesar cipher of English text,
+	 * so two letters of a column are equal much more often than for a wrong length.
+	 * This runs in O(n * maxKeyLength) on primitive bytes.
+	 * @param cipher       the byte array representing the encoded text without space
+	 * @param maxKeyLength the longest key length to try
+	 * @return the candidate lengths, from the most to the least likely
+	 */
+	public static List<KeyLengthCandidate> vigenereKeyLengthCandidates(byte[] cipher, int maxKeyLength) {
+		return vigenereKeyLengthCandidates(cipher, cipher.length, maxKeyLength);
+	}
+
+	/**
+	 * Method that ranks the possible lengths of a Vigenere key using the index of coincidence
+	 * @param cipher       the byte array whose first length bytes are the encoded text without space
+	 * @param length       the amount of bytes of the encoded text
+	 * @param maxKeyLength the longest key length to try
+	 * @return the candidate lengths, from the most to the least likely
+	 */
+	public static List<KeyLengthCandidate> vigenereKeyLengthCandidates(byte[] cipher, int length, int maxKeyLength) {
+		return vigenereKeyLengthCandidates(cipher, length, maxKeyLength, new int[ALPHABETSIZE]);
+	}
+
+	/**
+	 * Method that ranks the possible lengths of a Vigenere key, using a caller supplied scratch array for the counts
+	 */
+	static List<KeyLengthCandidate> vigenereKeyLengthCandidates(byte[] cipher, int length, int maxKeyLength, int[] counts) {
+		assert(cipher != null && length <= cipher.length && maxKeyLength > 0);
+		// each column needs at least two letters to have an index of coincidence
+		int longest = Math.max(1, Math.min(maxKeyLength, length / 2));
+		List<KeyLengthCandidate> candidates = new ArrayList<>();
+		for (int keyLength = 1; keyLength <= longest; keyLength++) {
+			checkInterrupted();
+			double total = 0;
+			for (int column = 0; column < keyLength; column++) {
+				Arrays.fill(counts, 0);
+				int n = 0;
+				for (int i = column; i < length; i += keyLength) {
+					counts[cipher[i] + 128]++;
+					n++;
+				}
+				total += indexOfCoincidence(counts, n);
+			}
+			candidates.add(new KeyLengthCandidate(keyLength, total / keyLength));
+		}
+		Collections.sort(candidates);
+		return candidates;
+	}
+
+	/**
+	 * Method choosing the key length among ranked candidates. The multiples of the right length score as well as it,
+	 * so the shortest length scoring close enough to the best one is kept.
+	 * @param candidates the candidates, from the most to the least likely
+	 * @return the length of the key
+	 */
+	public static int vigenereBestKeyLength(List<KeyLengthCandidate> candidates) {
+		assert(!candidates.isEmpty());
+		double threshold = candidates.get(0).score() * KEY_LENGTH_TOLERANCE;
+		int best = candidates.get(0).length();
+		for (KeyLengthCandidate candidate : candidates)
+			if (candidate.score() >= threshold && candidate.length() < best) best = candidate.length();
+		return best;
+	}
+
+	/**
+	 * Method computing the index of coincidence of a text from the count of each of its bytes :
+	 * the probability that two bytes taken at random in the text are equal
+	 * @param counts the amount of each byte in the text
+	 * @param n      the length of the text
+	 * @return the index of coincidence, 0 for a text shorter than 2 bytes
+	 */
+	public static double indexOfCoincidence(int[] counts, int n) {
+		if (n < 2) return 0;
+		long pairs = 0;
+		for (int count : counts) pairs += (long) count * (count - 1);
+		return (double) pairs / ((long) n * (n - 1));
+	}
+
 	/**
 	 * Takes the cipher without space, and the key length, and uses the dot product with the English language frequencies 
 	 * to compute the shifting for each letter of the key
@@ -220,14 +516,9 @@ public class Decrypt {
 	 * @return the inverse key to decode the Vigenere cipher text
 	 */
 	public static byte[] vigenereFindKey(List<Byte> cipher, int keyLength) {
-		byte[][] caesarKey = new byte[keyLength][cipher.size()/keyLength];
-		for (int i = 0; i < keyLength; i++)
-			for (int j = 0; j < (cipher.size() / keyLength); j++)
-				caesarKey[i][j] = cipher.get((keyLength * j) + i);
-		byte[] keys = new byte[keyLength];
-		for (int i = 0; i < keyLength; i++)
-			keys[i] = (byte) -(caesarWithFrequencies(caesarKey[i]));
-		return keys;
+		byte[] bytes = new byte[cipher.size()];
+		for (int i = 0; i < bytes.length; i++) bytes[i] = cipher.get(i);
+		return new VigenereBreaker().findKey(bytes, bytes.length, keyLength);
 	}
 
 	//-----------------------Basic CBC-------------------------
@@ -238,24 +529,135 @@ public class Decrypt {
 	 * @return the clear text
 	 */
 	public static byte[] decryptCBC(byte[] cipher, byte[] iv) {
-		int iterations = cipher.length/iv.length;
-		if (cipher.length % iv.length != 0) iterations++;
-
-		ArrayList<Byte> plainList = new ArrayList<>();
-		byte[][] cipherBlocks = new byte[iterations][iv.length];
-		byte[][] plainBlocks = new byte[iterations][iv.length];
+		assert(cipher != null);
 		byte[] plainBytes = new byte[cipher.length];
-		for(int i = 0; i< iterations; i++) {
-			cipherBlocks[i] = Main.trim(cipher, (i+1)*iv.length, true);
-			cipherBlocks[i] = Main.trim(cipherBlocks[i], i*iv.length);
-			if (i != 0)
-				plainBlocks[i] = Encrypt.oneTimePad(cipherBlocks[i], cipherBlocks[i - 1]);
-			else plainBlocks[i] = Encrypt.oneTimePad(cipherBlocks[i], iv);
-			for (int j = 0; j < iv.length; j++)
-				plainList.add(plainBlocks[i][j]);
+		decryptCBC(cipher, 0, plainBytes, 0, cipher.length, iv);
+		return plainBytes;
+	}
+
+	/**
+	 * Method used to decode a part of a byte array encoded following the CBC pattern, in one pass and without copying any block.
+	 * src and dst may be the same array to decode in place.
+	 * @param src    the array containing the encoded bytes
+	 * @param srcOff the offset of the first byte to decode
+	 * @param dst    the array receiving the clear bytes
+	 * @param dstOff the offset of the first clear byte in dst
+	 * @param len    the amount of bytes to decode
+	 * @param iv     the pad of size BLOCKSIZE we use to start the chain encoding
+	 */
+	public static void decryptCBC(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte[] iv) {
+		assert(src != null && dst != null && iv.length > 0);
+		if (src != dst) {
+			decryptCBCRange(src, srcOff, len, iv, 0, len, dst, dstOff);
+		} else {
+			// going backwards keeps the previous cipher block intact when decoding in place
+			BlockCursor cipher = new BlockCursor(src, srcOff, len, iv.length);
+			cipher.seek(cipher.blockCount());
+			while (cipher.previous()) {
+				int offset = cipher.offset();
+				int shift = dstOff - srcOff;
+				if (cipher.block() == 0) ByteKernels.oneTimePad(src, offset, dst, offset + shift, cipher.length(), iv, 0);
+				else ByteKernels.oneTimePad(src, offset, dst, offset + shift, cipher.length(), src, offset - iv.length);
+			}
 		}
-		for(int i=0; i < cipher.length; i++)
-			plainBytes[i] = plainList.get(i);
+	}
+
+	/**
+	 * Method used to decode a CBC cipher text using all the cores of the machine.
+	 * Each plain block only depends on its cipher block and the previous one, so the cipher text is
+	 * split in ranges of blocks which are decoded independently, each one seeded by the cipher block before it.
+	 * @param cipher the byte array representing the encoded text
+	 * @param iv     the pad of size BLOCKSIZE we use to start the chain encoding
+	 * @return the clear text, identical to the one of {@link #decryptCBC(byte[], byte[])}
+	 */
+	public static byte[] decryptCBCParallel(byte[] cipher, byte[] iv) {
+		return decryptCBCParallel(cipher, iv, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Method used to decode a CBC cipher text in parallel on a given pool
+	 * @param cipher the byte array representing the encoded text
+	 * @param iv     the pad of size BLOCKSIZE we use to start the chain encoding
+	 * @param pool   the pool running the decoding tasks
+	 * @return the clear text, identical to the one of {@link #decryptCBC(byte[], byte[])}
+	 */
+	public static byte[] decryptCBCParallel(byte[] cipher, byte[] iv, ForkJoinPool pool) {
+		assert(cipher != null && iv.length > 0);
+		byte[] plainBytes = new byte[cipher.length];
+		if (cipher.length <= PARALLEL_THRESHOLD) decryptCBCRange(cipher, 0, cipher.length, iv, 0, cipher.length, plainBytes, 0);
+		else pool.invoke(new CBCDecodingTask(cipher, iv, 0, cipher.length, plainBytes));
+		return plainBytes;
+	}
+
+	/**
+	 * Method used to decode only some blocks of a CBC cipher text, without touching the rest of it
+	 * @param cipher    the byte array representing the encoded text
+	 * @param iv        the pad of size BLOCKSIZE we use to start the chain encoding
+	 * @param fromBlock the index of the first block to decode
+	 * @param toBlock   the index of the block after the last one to decode, the last block may be partial
+	 * @return the clear text of the blocks [fromBlock, toBlock)
+	 */
+	public static byte[] decryptBlockRange(byte[] cipher, byte[] iv, int fromBlock, int toBlock) {
+		assert(cipher != null && iv.length > 0 && 0 <= fromBlock && fromBlock <= toBlock);
+		int from = (int) Math.min((long) fromBlock * iv.length, cipher.length);
+		int to = (int) Math.min((long) toBlock * iv.length, cipher.length);
+		byte[] plainBytes = new byte[to - from];
+		decryptCBCRange(cipher, 0, cipher.length, iv, from, to, plainBytes, 0);
 		return plainBytes;
 	}
+
+	/**
+	 * Helper method stopping a breaking method once its thread has been interrupted, for instance when a job of
+	 * {@link BatchBreaker} times out. The interrupt status is kept for the caller.
+	 */
+	static void checkInterrupted() {
+		if (Thread.currentThread().isInterrupted()) throw new CancellationException("The breaking was interrupted");
+	}
+
+	/**
+	 * Helper method decoding the bytes [from, to) of a CBC message stored at src[srcOff .. srcOff + len)
+	 * into dst, without modifying src
+	 */
+	private static void decryptCBCRange(byte[] src, int srcOff, int len, byte[] iv, int from, int to, byte[] dst, int dstOff) {
+		assert(0 <= from && from <= to && to <= len && (from % iv.length == 0 || from == to));
+		int shift = dstOff - srcOff - from;
+		// the first block of the message is chained to the iv
+		int head = (from == 0) ? Math.min(to, iv.length) : 0;
+		ByteKernels.oneTimePad(src, srcOff, dst, srcOff + shift, head, iv, 0);
+		// the other plain blocks only depend on the cipher text, so they are all decoded as one run
+		// with each byte chained one block back, a kernel call per block would be far slower on small blocks
+		int offset = srcOff + from + head;
+		ByteKernels.oneTimePad(src, offset, dst, offset + shift, to - from - head, src, offset - iv.length);
+	}
+
+	/**
+	 * Task decoding a range of a CBC message, split in two while the range is larger than PARALLEL_THRESHOLD
+	 */
+	private static final class CBCDecodingTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final byte[] cipher;
+		private final byte[] iv;
+		private final int from;
+		private final int to;
+		private final byte[] plain;
+
+		CBCDecodingTask(byte[] cipher, byte[] iv, int from, int to, byte[] plain) {
+			this.cipher = cipher;
+			this.iv = iv;
+			this.from = from;
+			this.to = to;
+			this.plain = plain;
+		}
+
+		@Override
+		protected void compute() {
+			// split on a block boundary, a range of less than two blocks cannot be split
+			int middle = from + ((to - from) / 2 / iv.length) * iv.length;
+			if (to - from <= PARALLEL_THRESHOLD || middle == from) {
+				decryptCBCRange(cipher, 0, cipher.length, iv, from, to, plain, from);
+				return;
+			}
+			invokeAll(new CBCDecodingTask(cipher, iv, from, middle, plain), new CBCDecodingTask(cipher, iv, middle, to, plain));
+		}
+	}
 }
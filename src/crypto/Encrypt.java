@@ -1,7 +1,11 @@
 package crypto;
 
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static crypto.ByteKernels.PARALLEL_THRESHOLD;
 
 public class Encrypt {
 	
@@ -62,12 +66,48 @@ public class Encrypt {
 	public static byte[] caesar(byte[] plainText, byte key, boolean spaceEncoding) {
 		assert(plainText != null);
 		byte[] cipherBytes = new byte[plainText.length];
-		for (int i = 0 ; i < plainText.length; i++) {
-			if(!spaceEncoding && plainText[i] == SPACE) cipherBytes[i] = SPACE;
-			else cipherBytes[i] = (byte) (plainText[i] + key);
-		}
+		caesar(plainText, 0, cipherBytes, 0, plainText.length, key, spaceEncoding);
 		return cipherBytes;
 	}
+
+	/**
+	 * Method to encode a part of a byte array into a caller supplied array, without any allocation.
+	 * src and dst may be the same array to encode in place.
+	 * @param src           the array containing the bytes to encode
+	 * @param srcOff        the offset of the first byte to encode
+	 * @param dst           the array receiving the encoded bytes
+	 * @param dstOff        the offset of the first encoded byte in dst
+	 * @param len           the amount of bytes to encode
+	 * @param key           the byte corresponding to the char we use to shift
+	 * @param spaceEncoding if false, then spaces are not encoded
+	 */
+	public static void caesar(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte key, boolean spaceEncoding) {
+		assert(src != null && dst != null);
+		ByteKernels.caesar(src, srcOff, dst, dstOff, len, key, spaceEncoding);
+	}
+
+	/**
+	 * Method to encode the remaining bytes of a buffer into another (heap or direct) buffer, without any allocation.
+	 * Both positions are moved by the amount of encoded bytes, src and dst may be the same buffer to encode in place.
+	 * @param src           the buffer containing the bytes to encode
+	 * @param dst           the buffer receiving the encoded bytes, with at least src.remaining() bytes left
+	 * @param key           the byte corresponding to the char we use to shift
+	 * @param spaceEncoding if false, then spaces are not encoded
+	 */
+	public static void caesar(ByteBuffer src, ByteBuffer dst, byte key, boolean spaceEncoding) {
+		int len = src.remaining();
+		int srcPos = src.position();
+		int dstPos = dst.position();
+		if (src.hasArray() && dst.hasArray()) {
+			caesar(src.array(), src.arrayOffset() + srcPos, dst.array(), dst.arrayOffset() + dstPos, len, key, spaceEncoding);
+		} else {
+			for (int i = 0; i < len; i++) {
+				byte b = src.get(srcPos + i);
+				dst.put(dstPos + i, (!spaceEncoding && b == SPACE) ? SPACE : (byte) (b + key));
+			}
+		}
+		advance(src, srcPos, dst, dstPos, len);
+	}
 	
 	/**
 	 * Method to encode a byte array message  using a single character key
@@ -92,13 +132,49 @@ public class Encrypt {
 	public static byte[] xor(byte[] plainText, byte key, boolean spaceEncoding) {
 		assert(plainText != null);
 		byte[] cipherBytes = new byte[plainText.length];
-		for (int i = 0 ; i < plainText.length; i++) {
-			if(!spaceEncoding && plainText[i] == SPACE) cipherBytes[i] = SPACE;
-			else cipherBytes[i] = (byte) (plainText[i] ^ key);
-		}
+		xor(plainText, 0, cipherBytes, 0, plainText.length, key, spaceEncoding);
 		return cipherBytes;
 	}
 
+	/**
+	 * Method to XOR a part of a byte array into a caller supplied array, without any allocation.
+	 * src and dst may be the same array to encode in place.
+	 * @param src           the array containing the bytes to encode
+	 * @param srcOff        the offset of the first byte to encode
+	 * @param dst           the array receiving the encoded bytes
+	 * @param dstOff        the offset of the first encoded byte in dst
+	 * @param len           the amount of bytes to encode
+	 * @param key           the byte we will use to XOR
+	 * @param spaceEncoding if false, then spaces are not encoded
+	 */
+	public static void xor(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte key, boolean spaceEncoding) {
+		assert(src != null && dst != null);
+		ByteKernels.xor(src, srcOff, dst, dstOff, len, key, spaceEncoding);
+	}
+
+	/**
+	 * Method to XOR the remaining bytes of a buffer into another (heap or direct) buffer, without any allocation.
+	 * Both positions are moved by the amount of encoded bytes, src and dst may be the same buffer to encode in place.
+	 * @param src           the buffer containing the bytes to encode
+	 * @param dst           the buffer receiving the encoded bytes, with at least src.remaining() bytes left
+	 * @param key           the byte we will use to XOR
+	 * @param spaceEncoding if false, then spaces are not encoded
+	 */
+	public static void xor(ByteBuffer src, ByteBuffer dst, byte key, boolean spaceEncoding) {
+		int len = src.remaining();
+		int srcPos = src.position();
+		int dstPos = dst.position();
+		if (src.hasArray() && dst.hasArray()) {
+			xor(src.array(), src.arrayOffset() + srcPos, dst.array(), dst.arrayOffset() + dstPos, len, key, spaceEncoding);
+		} else {
+			for (int i = 0; i < len; i++) {
+				byte b = src.get(srcPos + i);
+				dst.put(dstPos + i, (!spaceEncoding && b == SPACE) ? SPACE : (byte) (b ^ key));
+			}
+		}
+		advance(src, srcPos, dst, dstPos, len);
+	}
+
 	/**
 	 * Method to encode a byte array using a XOR with a single byte long key
 	 * spaces are not encoded
@@ -122,15 +198,66 @@ public class Encrypt {
 	public static byte[] vigenere(byte[] plainText, byte[] keyword, boolean spaceEncoding) {
 		assert(plainText != null);
 		byte[] cipherBytes = new byte[plainText.length];
-		int spaceAmount = 0;
-		for (int i = 0; i < plainText.length; i++) {
-			if (!spaceEncoding && plainText[i] == SPACE) {
-				cipherBytes[i] = SPACE;
-				spaceAmount += 1;
-			} else cipherBytes[i] = (byte) (plainText[i] + keyword[(i - spaceAmount) % keyword.length]);
-		}
+		vigenere(plainText, 0, cipherBytes, 0, plainText.length, keyword, 0, spaceEncoding);
 		return cipherBytes;
 	}
+
+	/**
+	 * Method to encode a part of a byte array into a caller supplied array, without any allocation.
+	 * src and dst may be the same array to encode in place.
+	 * The returned key index can be given back to the next call to continue the encoding of a longer message.
+	 * @param src           the array containing the bytes to encode
+	 * @param srcOff        the offset of the first byte to encode
+	 * @param dst           the array receiving the encoded bytes
+	 * @param dstOff        the offset of the first encoded byte in dst
+	 * @param len           the amount of bytes to encode
+	 * @param keyword       the byte array representing the key used to perform the shift
+	 * @param keyIndex      the index in the keyword of the byte used to encode src[srcOff]
+	 * @param spaceEncoding if false, then spaces are not encoded and do not consume the keyword
+	 * @return the index in the keyword of the byte to use for the next byte of the message
+	 */
+	public static int vigenere(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte[] keyword, int keyIndex, boolean spaceEncoding) {
+		assert(src != null && dst != null && keyIndex >= 0 && keyIndex < keyword.length);
+		for (int i = 0; i < len; i++) {
+			byte b = src[srcOff + i];
+			if (!spaceEncoding && b == SPACE) dst[dstOff + i] = SPACE;
+			else {
+				dst[dstOff + i] = (byte) (b + keyword[keyIndex]);
+				if (++keyIndex == keyword.length) keyIndex = 0;
+			}
+		}
+		return keyIndex;
+	}
+
+	/**
+	 * Method to encode the remaining bytes of a buffer into another (heap or direct) buffer, without any allocation.
+	 * Both positions are moved by the amount of encoded bytes, src and dst may be the same buffer to encode in place.
+	 * @param src           the buffer containing the bytes to encode
+	 * @param dst           the buffer receiving the encoded bytes, with at least src.remaining() bytes left
+	 * @param keyword       the byte array representing the key used to perform the shift
+	 * @param keyIndex      the index in the keyword of the byte used to encode the first remaining byte
+	 * @param spaceEncoding if false, then spaces are not encoded and do not consume the keyword
+	 * @return the index in the keyword of the byte to use for the next byte of the message
+	 */
+	public static int vigenere(ByteBuffer src, ByteBuffer dst, byte[] keyword, int keyIndex, boolean spaceEncoding) {
+		int len = src.remaining();
+		int srcPos = src.position();
+		int dstPos = dst.position();
+		if (src.hasArray() && dst.hasArray()) {
+			keyIndex = vigenere(src.array(), src.arrayOffset() + srcPos, dst.array(), dst.arrayOffset() + dstPos, len, keyword, keyIndex, spaceEncoding);
+		} else {
+			for (int i = 0; i < len; i++) {
+				byte b = src.get(srcPos + i);
+				if (!spaceEncoding && b == SPACE) dst.put(dstPos + i, SPACE);
+				else {
+					dst.put(dstPos + i, (byte) (b + keyword[keyIndex]));
+					if (++keyIndex == keyword.length) keyIndex = 0;
+				}
+			}
+		}
+		advance(src, srcPos, dst, dstPos, len);
+		return keyIndex;
+	}
 	
 	/**
 	 * Method to encode a byte array using a byte array keyword
@@ -156,9 +283,47 @@ public class Encrypt {
 	public static byte[] oneTimePad(byte[] plainText, byte[] pad) {
 		assert(plainText != null && plainText.length <= pad.length);
 		byte[] cipherBytes = new byte[plainText.length];
-		for(int i = 0; i < plainText.length; i++) cipherBytes[i] = (byte) (plainText[i] ^ pad[i]);
+		oneTimePad(plainText, 0, cipherBytes, 0, plainText.length, pad, 0);
 		return cipherBytes;
 	}
+
+	/**
+	 * Method to XOR a part of a byte array with a part of a pad into a caller supplied array, without any allocation.
+	 * src and dst may be the same array to encode in place.
+	 * @param src    the array containing the bytes to encode
+	 * @param srcOff the offset of the first byte to encode
+	 * @param dst    the array receiving the encoded bytes
+	 * @param dstOff the offset of the first encoded byte in dst
+	 * @param len    the amount of bytes to encode
+	 * @param pad    the one time pad
+	 * @param padOff the offset in the pad of the byte used to encode src[srcOff]
+	 */
+	public static void oneTimePad(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte[] pad, int padOff) {
+		assert(src != null && dst != null && padOff + len <= pad.length);
+		ByteKernels.oneTimePad(src, srcOff, dst, dstOff, len, pad, padOff);
+	}
+
+	/**
+	 * Method to XOR the remaining bytes of a buffer with a part of a pad into another (heap or direct) buffer,
+	 * without any allocation. Both positions are moved by the amount of encoded bytes,
+	 * src and dst may be the same buffer to encode in place.
+	 * @param src    the buffer containing the bytes to encode
+	 * @param dst    the buffer receiving the encoded bytes, with at least src.remaining() bytes left
+	 * @param pad    the one time pad
+	 * @param padOff the offset in the pad of the byte used to encode the first remaining byte
+	 */
+	public static void oneTimePad(ByteBuffer src, ByteBuffer dst, byte[] pad, int padOff) {
+		int len = src.remaining();
+		int srcPos = src.position();
+		int dstPos = dst.position();
+		if (src.hasArray() && dst.hasArray()) {
+			oneTimePad(src.array(), src.arrayOffset() + srcPos, dst.array(), dst.arrayOffset() + dstPos, len, pad, padOff);
+		} else {
+			assert(padOff + len <= pad.length);
+			for (int i = 0; i < len; i++) dst.put(dstPos + i, (byte) (src.get(srcPos + i) ^ pad[padOff + i]));
+		}
+		advance(src, srcPos, dst, dstPos, len);
+	}
 	
 	//-----------------------Basic CBC-------------------------
 	/**
@@ -169,32 +334,242 @@ public class Encrypt {
 	 */
 	public static byte[] cbc(byte[] plainText, byte[] iv) {
 		assert(plainText != null);
-		int iterations = plainText.length/iv.length;
-		if (plainText.length % iv.length != 0) iterations++;
+		byte[] cipherBytes = new byte[plainText.length];
+		cbc(plainText, 0, cipherBytes, 0, plainText.length, iv);
+		return cipherBytes;
+	}
 
-		ArrayList<Byte> cipherList = new ArrayList<>();
-		byte[][] plainBlocks = new byte[iterations][iv.length];
-		byte[][] cipherBlocks = new byte[iterations][iv.length];
+	/**
+	 * Method applying the basic CBC to a part of a byte array, in one pass and without copying any block.
+	 * Each cipher block is the XOR of the plain block with the previous cipher block (the iv for the first one),
+	 * the last block may be shorter than the iv. src and dst may be the same array to encode in place.
+	 * @param src    the array containing the bytes to encode
+	 * @param srcOff the offset of the first byte to encode
+	 * @param dst    the array receiving the encoded bytes
+	 * @param dstOff the offset of the first encoded byte in dst
+	 * @param len    the amount of bytes to encode
+	 * @param iv     the pad of size BLOCKSIZE we use to start the chain encoding
+	 */
+	public static void cbc(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte[] iv) {
+		assert(src != null && dst != null && iv.length > 0);
+		int blockSize = iv.length;
+		// the first block is chained to the iv
+		int head = Math.min(len, blockSize);
+		for (int i = 0; i < head; i++) dst[dstOff + i] = (byte) (src[srcOff + i] ^ iv[i]);
+		// each block depends on the previous one, so the rest is a single flat loop with each byte chained one block back :
+		// walking it block by block would only add a call per block
+		int shift = dstOff - srcOff;
+		for (int i = srcOff + head; i < srcOff + len; i++) dst[i + shift] = (byte) (src[i] ^ dst[i + shift - blockSize]);
+	}
+
+	//-----------------------Parallel-------------------------
+	/**
+	 * Same as {@link #encrypt(String, String, int)}, using all the cores of the machine for the messages
+	 * longer than PARALLEL_THRESHOLD
+	 * @param message the message to encode already cleaned
+	 * @param key     the key used to encode
+	 * @param type    the method used to encode : 0 = Caesar, 1 = Vigenere, 2 = XOR, 3 = One time pad, 4 = CBC
+	 * @return an encoded String, identical to the one of {@link #encrypt(String, String, int)}
+	 */
+	public static String encryptParallel(String message, String key, int type) {
+		return encryptParallel(message, key, type, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Same as {@link #encrypt(String, String, int)}, on a given pool. Every cipher but CBC encodes each byte
+	 * independently of the others, so the message is split in chunks encoded in parallel.
+	 * CBC chains each block to the previous cipher block, so it is always encoded sequentially.
+	 * @param message the message to encode already cleaned
+	 * @param key     the key used to encode
+	 * @param type    the method used to encode : 0 = Caesar, 1 = Vigenere, 2 = XOR, 3 = One time pad, 4 = CBC
+	 * @param pool    the pool running the encoding tasks
+	 * @return an encoded String, identical to the one of {@link #encrypt(String, String, int)}
+	 */
+	public static String encryptParallel(String message, String key, int type, ForkJoinPool pool) {
+		assert(message != null);
+		byte[] bytesMessage = Helper.stringToBytes(message);
+		byte[] bytesKey = Helper.stringToBytes(key);
+		String result = message;
+		switch(type) {
+			case CAESAR: // 0
+				result = Helper.bytesToString(caesarParallel(bytesMessage, bytesKey[0], false, pool));
+				break;
+			case VIGENERE: // 1
+				result = Helper.bytesToString(vigenereParallel(bytesMessage, bytesKey, false, pool));
+				break;
+			case XOR: // 2
+				result = Helper.bytesToString(xorParallel(bytesMessage, bytesKey[0], false, pool));
+				break;
+			case ONETIME: // 3
+				result = Helper.bytesToString(oneTimePadParallel(bytesMessage, bytesKey, pool));
+				break;
+			case CBC: // 4
+				result = Helper.bytesToString(cbc(bytesMessage, bytesKey));
+				break;
+		}
+		return result;
+	}
+
+	/**
+	 * Method to encode a byte array with Caesar, in parallel chunks on a given pool
+	 * @param plainText     the byte array representing the string to encode
+	 * @param key           the byte corresponding to the char we use to shift
+	 * @param spaceEncoding if false, then spaces are not encoded
+	 * @param pool          the pool running the encoding tasks
+	 * @return an encoded byte array, identical to the one of {@link #caesar(byte[], byte, boolean)}
+	 */
+	public static byte[] caesarParallel(byte[] plainText, byte key, boolean spaceEncoding, ForkJoinPool pool) {
+		assert(plainText != null);
 		byte[] cipherBytes = new byte[plainText.length];
+		forEachChunk(plainText.length, pool, (from, len) -> caesar(plainText, from, cipherBytes, from, len, key, spaceEncoding));
+		return cipherBytes;
+	}
 
-		for(int i = 0; i< iterations; i++) {
-			plainBlocks[i] = Main.trim(plainText, (i+1)*iv.length, true);
-			plainBlocks[i] = Main.trim(plainBlocks[i], i*iv.length);
-			if (i != 0) cipherBlocks[i] = oneTimePad(plainBlocks[i], cipherBlocks[i - 1]);
-			else cipherBlocks[i] = oneTimePad(plainBlocks[i], iv);
-			for (int j = 0; j < iv.length; j++) cipherList.add(cipherBlocks[i][j]);
+	/**
+	 * Method to encode a byte array with XOR, in parallel chunks on a given pool
+	 * @param plainText     the byte array representing the string to encode
+	 * @param key           the byte corresponding to the char we use to XOR
+	 * @param spaceEncoding if false, then spaces are not encoded
+	 * @param pool          the pool running the encoding tasks
+	 * @return an encoded byte array, identical to the one of {@link #xor(byte[], byte, boolean)}
+	 */
+	public static byte[] xorParallel(byte[] plainText, byte key, boolean spaceEncoding, ForkJoinPool pool) {
+		assert(plainText != null);
+		byte[] cipherBytes = new byte[plainText.length];
+		forEachChunk(plainText.length, pool, (from, len) -> xor(plainText, from, cipherBytes, from, len, key, spaceEncoding));
+		return cipherBytes;
+	}
+
+	/**
+	 * Method to encode a byte array with Vigenere, in parallel chunks on a given pool.
+	 * When the spaces are not encoded they do not consume the keyword, so the index in the keyword of the first byte
+	 * of a chunk depends on the spaces before it : the bytes which are not spaces are first counted in each chunk
+	 * in parallel, and the sums of the counts of the previous chunks give the key index each chunk starts with.
+	 * @param plainText     the byte array representing the message to encode
+	 * @param keyword       the byte array representing the key used to perform the shift
+	 * @param spaceEncoding if false, then spaces are not encoded
+	 * @param pool          the pool running the encoding tasks
+	 * @return an encoded byte array, identical to the one of {@link #vigenere(byte[], byte[], boolean)}
+	 */
+	public static byte[] vigenereParallel(byte[] plainText, byte[] keyword, boolean spaceEncoding, ForkJoinPool pool) {
+		assert(plainText != null && keyword.length > 0);
+		byte[] cipherBytes = new byte[plainText.length];
+		if (plainText.length <= PARALLEL_THRESHOLD) {
+			vigenere(plainText, 0, cipherBytes, 0, plainText.length, keyword, 0, spaceEncoding);
+			return cipherBytes;
+		}
+		// keyIndices[c] is the index in the keyword of the first byte of the chunk c
+		int[] keyIndices = new int[(plainText.length - 1) / PARALLEL_THRESHOLD + 1];
+		if (spaceEncoding) {
+			for (int c = 0; c < keyIndices.length; c++) keyIndices[c] = (int) ((long) c * PARALLEL_THRESHOLD % keyword.length);
+		} else {
+			int[] keyed = new int[keyIndices.length];
+			forEachChunk(plainText.length, pool, (from, len) -> keyed[from / PARALLEL_THRESHOLD] = countKeyed(plainText, from, len));
+			long total = 0;
+			for (int c = 0; c < keyIndices.length; c++) {
+				keyIndices[c] = (int) (total % keyword.length);
+				total += keyed[c];
+			}
 		}
-		for(int i=0; i < plainText.length; i++) cipherBytes[i] = cipherList.get(i);
+		forEachChunk(plainText.length, pool, (from, len) ->
+				vigenere(plainText, from, cipherBytes, from, len, keyword, keyIndices[from / PARALLEL_THRESHOLD], spaceEncoding));
 		return cipherBytes;
 	}
+
 	/**
-	 * Generate a random pad/IV of bytes to be used for encoding
+	 * Method to encode a byte array with a one time pad, in parallel chunks on a given pool
+	 * @param plainText the byte array representing the string to encode
+	 * @param pad       the one time pad
+	 * @param pool      the pool running the encoding tasks
+	 * @return an encoded byte array, identical to the one of {@link #oneTimePad(byte[], byte[])}
+	 */
+	public static byte[] oneTimePadParallel(byte[] plainText, byte[] pad, ForkJoinPool pool) {
+		assert(plainText != null && plainText.length <= pad.length);
+		byte[] cipherBytes = new byte[plainText.length];
+		forEachChunk(plainText.length, pool, (from, len) -> oneTimePad(plainText, from, cipherBytes, from, len, pad, from));
+		return cipherBytes;
+	}
+
+	/**
+	 * Generate a random pad/IV of bytes to be used for encoding, from the cryptographically strong default pad source
 	 * @param size the size of the pad
 	 * @return random bytes in an array
 	 */
 	public static byte[] generatePad(int size) {
-		byte[] pad = new byte[size];
-		for(int i = 0; i < size; i++) pad[i] = (byte) rand.nextInt(256);
-		return pad;
+		return generatePad(size, PadSource.defaultSource());
+	}
+
+	/**
+	 * Generate a random pad/IV of bytes to be used for encoding
+	 * @param size   the size of the pad
+	 * @param source the source of the random bytes, for instance {@link PadSource#keystream(byte[], byte[])}
+	 *               for pads the receiver can generate again
+	 * @return random bytes in an array
+	 */
+	public static byte[] generatePad(int size, PadSource source) {
+		return source.generate(size);
+	}
+
+	/**
+	 * Helper method counting the bytes of a range which are not spaces, that is the ones consuming the Vigenere keyword
+	 */
+	private static int countKeyed(byte[] text, int from, int len) {
+		int count = 0;
+		for (int i = from; i < from + len; i++) count += (text[i] != SPACE) ? 1 : 0;
+		return count;
+	}
+
+	/**
+	 * Helper method encoding a message of the given length in chunks of PARALLEL_THRESHOLD bytes on a pool,
+	 * or directly in the calling thread when it is not longer than a chunk
+	 */
+	private static void forEachChunk(int length, ForkJoinPool pool, ChunkEncoder encoder) {
+		if (length <= PARALLEL_THRESHOLD) encoder.encode(0, length);
+		else pool.invoke(new ChunkTask(encoder, length, 0, (length - 1) / PARALLEL_THRESHOLD + 1));
+	}
+
+	/**
+	 * Encoding of the bytes [from, from + len) of a message, independent of the other bytes
+	 */
+	private interface ChunkEncoder {
+		void encode(int from, int len);
+	}
+
+	/**
+	 * Task encoding a range of chunks of a message, split in two while it has more than one chunk
+	 */
+	private static final class ChunkTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final ChunkEncoder encoder;
+		private final int length;
+		private final int fromChunk;
+		private final int toChunk;
+
+		ChunkTask(ChunkEncoder encoder, int length, int fromChunk, int toChunk) {
+			this.encoder = encoder;
+			this.length = length;
+			this.fromChunk = fromChunk;
+			this.toChunk = toChunk;
+		}
+
+		@Override
+		protected void compute() {
+			if (toChunk - fromChunk == 1) {
+				int from = fromChunk * PARALLEL_THRESHOLD;
+				encoder.encode(from, Math.min(PARALLEL_THRESHOLD, length - from));
+				return;
+			}
+			int middle = (fromChunk + toChunk) >>> 1;
+			invokeAll(new ChunkTask(encoder, length, fromChunk, middle), new ChunkTask(encoder, length, middle, toChunk));
+		}
+	}
+
+	/**
+	 * Helper method moving the positions of the buffers used by the ByteBuffer methods once they are done
+	 */
+	private static void advance(ByteBuffer src, int srcPos, ByteBuffer dst, int dstPos, int len) {
+		// dst first, so that working in place on a single buffer leaves it at the right position
+		dst.position(dstPos + len);
+		src.position(srcPos + len);
 	}
 }
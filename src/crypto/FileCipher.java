@@ -0,0 +1,111 @@
+package crypto;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Encoding and decoding of whole files. The input and output files are memory mapped window by window,
+ * and the cipher runs directly over the mapped buffers : the content is never copied into a String or an array,
+ * so each page is read once and written once whatever the size of the file.
+ */
+public final class FileCipher {
+	public static final long DEFAULT_WINDOW_SIZE = 1L << 26; // 64 MB
+
+	private FileCipher() {}
+
+	/**
+	 * Method to encode a file, giving the same bytes as {@link Encrypt#encrypt(String, String, int)} on its content
+	 * @param in   the file to encode
+	 * @param out  the file receiving the encoded bytes, replaced if it exists, may be the same file as in
+	 * @param type the method used to encode : 0 = Caesar, 1 = Vigenere, 2 = XOR, 3 = One time pad, 4 = CBC
+	 * @param key  the key used to encode
+	 */
+	public static void encryptFile(Path in, Path out, int type, byte[] key) throws IOException {
+		process(in, out, StreamCipher.forType(key, type), DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * Method to decode a file encoded by {@link #encryptFile(Path, Path, int, byte[])} with the same key
+	 * @param in   the file to decode
+	 * @param out  the file receiving the clear bytes, replaced if it exists, may be the same file as in
+	 * @param type the method used to encode : 0 = Caesar, 1 = Vigenere, 2 = XOR, 3 = One time pad, 4 = CBC
+	 * @param key  the key used to encode
+	 */
+	public static void decryptFile(Path in, Path out, int type, byte[] key) throws IOException {
+		StreamCipher cipher;
+		switch (type) {
+			case Encrypt.CAESAR: // 0
+				cipher = StreamCipher.caesar((byte) -key[0], false);
+				break;
+			case Encrypt.VIGENERE: // 1
+				byte[] inverse = new byte[key.length];
+				for (int i = 0; i < key.length; i++) inverse[i] = (byte) -key[i];
+				cipher = StreamCipher.vigenere(inverse, false);
+				break;
+			case Encrypt.CBC: // 4
+				cipher = StreamCipher.decryptCBC(key);
+				break;
+			default:
+				// XOR and the one time pad are their own inverse
+				cipher = StreamCipher.forType(key, type);
+				break;
+		}
+		process(in, out, cipher, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * Method to encode or decode a file with a One Time Pad read from another file at the same time,
+	 * so that neither the content nor the pad is ever held in memory as a whole
+	 * @param in          the file to encode or decode
+	 * @param out         the file receiving the result, replaced if it exists, may be the same file as in
+	 * @param pad         the file containing the pad
+	 * @param padPosition the position in the pad file of the first byte to use
+	 * @return the position in the pad file of the first byte left unused, where the next message has to start
+	 */
+	public static long oneTimePad(Path in, Path out, Path pad, long padPosition) throws IOException {
+		try (FileChannel padChannel = FileChannel.open(pad, StandardOpenOption.READ)) {
+			if (padChannel.size() - padPosition < Files.size(in)) throw new IOException("The pad is shorter than the message");
+			padChannel.position(padPosition);
+			OneTimePadStream cipher = StreamCipher.oneTimePad(PadSource.fromChannel(padChannel), padPosition);
+			process(in, out, cipher, DEFAULT_WINDOW_SIZE);
+			return cipher.padPosition();
+		}
+	}
+
+	/**
+	 * Method running a cipher over a whole file through memory mapped windows
+	 * @param in         the file to read
+	 * @param out        the file receiving the result, replaced if it exists, may be the same file as in
+	 * @param cipher     the cipher applied to the content
+	 * @param windowSize the amount of bytes mapped at once
+	 */
+	public static void process(Path in, Path out, StreamCipher cipher, long windowSize) throws IOException {
+		assert(windowSize > 0 && windowSize <= Integer.MAX_VALUE);
+		if (Files.exists(out) && Files.isSameFile(in, out)) {
+			try (FileChannel channel = FileChannel.open(in, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				long size = channel.size();
+				for (long position = 0; position < size; position += windowSize) {
+					MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.min(windowSize, size - position));
+					cipher.update(window, window.duplicate());
+				}
+			}
+			return;
+		}
+		try (FileChannel source = FileChannel.open(in, StandardOpenOption.READ);
+			 FileChannel target = FileChannel.open(out, StandardOpenOption.READ, StandardOpenOption.WRITE,
+					 StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			long size = source.size();
+			for (long position = 0; position < size; position += windowSize) {
+				long length = Math.min(windowSize, size - position);
+				MappedByteBuffer input = source.map(FileChannel.MapMode.READ_ONLY, position, length);
+				// mapping past the end of the output file grows it
+				MappedByteBuffer output = target.map(FileChannel.MapMode.READ_WRITE, position, length);
+				cipher.update(input, output);
+			}
+		}
+	}
+}
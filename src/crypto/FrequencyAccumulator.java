@@ -0,0 +1,186 @@
+package crypto;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static crypto.Decrypt.ALPHABETSIZE;
+import static crypto.Encrypt.SPACE;
+
+/**
+ * Byte counts of a cipher text received chunk by chunk, split in columns for Vigenere.
+ * The memory used only depends on the amount of columns, so an endless stream can be analyzed,
+ * and the counts of several shards (threads, machines) can be merged.
+ * The keys can be computed at any point from what has been seen so far.
+ * An instance is not thread safe, each thread should fill its own and merge them.
+ */
+public class FrequencyAccumulator {
+	private final int period;
+	private final boolean skipSpaces;
+	// counts[column][byte + 128]
+	private final long[][] counts;
+	private final long[] totals;
+	// column of the next counted byte
+	private int column;
+	private final CaesarKeyFinder keyFinder = new CaesarKeyFinder();
+
+	/**
+	 * Creates an accumulator for a Caesar cipher text : a single column, spaces included,
+	 * as {@link Decrypt#computeFrequencies(byte[])} does
+	 */
+	public FrequencyAccumulator() {
+		this(1, false, 0);
+	}
+
+	/**
+	 * Creates an accumulator for a Vigenere cipher text starting at its first byte : spaces are skipped
+	 * and the other bytes are counted in the column of the key byte which encoded them
+	 * @param period the length of the key
+	 */
+	public FrequencyAccumulator(int period) {
+		this(period, true, 0);
+	}
+
+	/**
+	 * @param period      the amount of columns
+	 * @param skipSpaces  if true, spaces are neither counted nor moved to the next column
+	 * @param startColumn the column of the first byte, for a shard starting in the middle of a message
+	 */
+	public FrequencyAccumulator(int period, boolean skipSpaces, int startColumn) {
+		assert(period > 0 && startColumn >= 0 && startColumn < period);
+		this.period = period;
+		this.skipSpaces = skipSpaces;
+		this.counts = new long[period][ALPHABETSIZE];
+		this.totals = new long[period];
+		this.column = startColumn;
+	}
+
+	/**
+	 * Method counting the next chunk of the cipher text
+	 * @param chunk the array containing the chunk
+	 * @param off   the offset of the chunk
+	 * @param len   the length of the chunk
+	 */
+	public void update(byte[] chunk, int off, int len) {
+		if (period == 1 && !skipSpaces) {
+			long[] single = counts[0];
+			for (int i = off; i < off + len; i++) single[chunk[i] + 128]++;
+			totals[0] += len;
+			return;
+		}
+		for (int i = off; i < off + len; i++) count(chunk[i]);
+	}
+
+	/**
+	 * Method counting the next chunk of the cipher text
+	 * @param chunk the array containing the chunk
+	 */
+	public void update(byte[] chunk) {
+		update(chunk, 0, chunk.length);
+	}
+
+	/**
+	 * Method counting the remaining bytes of a (heap or direct) buffer, whose position is moved to its limit
+	 * @param chunk the buffer containing the chunk
+	 */
+	public void update(ByteBuffer chunk) {
+		if (chunk.hasArray()) {
+			update(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+			chunk.position(chunk.limit());
+		} else {
+			while (chunk.hasRemaining()) count(chunk.get());
+		}
+	}
+
+	private void count(byte b) {
+		if (skipSpaces && b == SPACE) return;
+		counts[column][b + 128]++;
+		totals[column]++;
+		if (++column == period) column = 0;
+	}
+
+	/**
+	 * Method adding the counts of another accumulator of the same period, for instance filled by another thread.
+	 * For Vigenere, the other accumulator must have been started with the right column.
+	 * @param other the accumulator to add
+	 */
+	public void merge(FrequencyAccumulator other) {
+		assert(other.period == period && other.skipSpaces == skipSpaces);
+		for (int c = 0; c < period; c++) {
+			for (int b = 0; b < ALPHABETSIZE; b++) counts[c][b] += other.counts[c][b];
+			totals[c] += other.totals[c];
+		}
+	}
+
+	/**
+	 * Method forgetting everything counted so far, and going back to the first column
+	 */
+	public void reset() {
+		for (int c = 0; c < period; c++) {
+			Arrays.fill(counts[c], 0);
+			totals[c] = 0;
+		}
+		column = 0;
+	}
+
+	public int period() {
+		return period;
+	}
+
+	/**
+	 * @return the column of the next counted byte
+	 */
+	public int column() {
+		return column;
+	}
+
+	/**
+	 * @return the amount of bytes counted in a column
+	 */
+	public long total(int column) {
+		return totals[column];
+	}
+
+	/**
+	 * @return the amount of times a byte has been counted in a column
+	 */
+	public long count(int column, byte b) {
+		return counts[column][b + 128];
+	}
+
+	/**
+	 * Method computing the frequencies of a column, in the format of {@link Decrypt#computeFrequencies(byte[])}
+	 * @param column the column
+	 * @return the character frequencies as an array of float, indexed by byte value + 128
+	 */
+	public float[] frequencies(int column) {
+		float[] frequencies = new float[ALPHABETSIZE];
+		for (int i = 0; i < ALPHABETSIZE; i++) {
+			frequencies[i] = counts[column][i];
+			if (counts[column][i] != 0) frequencies[i] /= totals[column];
+		}
+		return frequencies;
+	}
+
+	/**
+	 * @return the key of a Caesar encoding, as {@link Decrypt#caesarWithFrequencies(byte[])} gives it for the first column
+	 */
+	public byte caesarKey() {
+		return keyFinder.findKey(counts[0]);
+	}
+
+	/**
+	 * @return the inverse key byte of a column, as {@link Decrypt#vigenereFindKey} gives it
+	 */
+	public byte columnKey(int column) {
+		return (byte) -keyFinder.findKey(counts[column]);
+	}
+
+	/**
+	 * @return the inverse key to decode the Vigenere cipher text, one byte per column
+	 */
+	public byte[] vigenereKey() {
+		byte[] key = new byte[period];
+		for (int c = 0; c < period; c++) key[c] = columnKey(c);
+		return key;
+	}
+}
@@ -18,16 +18,12 @@ public class Helper {
 
 	/**
 	 * Method to clean a string, only keeping lower case letters, and spaces.
+	 * The punctuation [:,;.] becomes spaces, see {@link TextNormalizer} to clean bytes without going through a String.
 	 * @param s the string to clean	
 	 * @return the string cleaned
 	 */
 	public static String cleanString(String s) {
-		String cleaned = s.toLowerCase();
-		cleaned = cleaned.replaceAll("[:,;.]", " "); 
-		cleaned = cleaned.replaceAll("[^a-z ]", ""); //97-122,32
-
-		assert (cleaned.matches("[a-z ]*"));
-		return cleaned;
+		return TextNormalizer.normalize(s);
 	}
 	
 	
@@ -85,11 +81,12 @@ public class Helper {
 	
 	
 	/**
-	 * Method to read a file into a string
+	 * Method to read a file into a string, lines are joined with a space
+	 * For large files, see {@link FileCipher} which never builds a String.
 	 * @param fileName the name of the file
 	 */
 	public static String readStringFromFile(String fileName) {
-		String string= "";  
+		StringBuilder string = new StringBuilder();
 		File file = new File(RES_PATH_HEADER + fileName); 
 		  try {
 		  BufferedReader br = new BufferedReader(new FileReader(file)); 
@@ -98,9 +95,9 @@ public class Helper {
 		  boolean checkFirst = false;
 		  while((temp = br.readLine())!= null) {
 			  if(checkFirst) {
-				  string += (" " + temp);
+				  string.append(' ').append(temp);
 			  }else {
-				  string += temp;
+				  string.append(temp);
 				  checkFirst = true;
 			  }
 		  }
@@ -111,7 +108,7 @@ public class Helper {
 			  e.printStackTrace();
 		  }
 		  
-		  return string;
+		  return string.toString();
 		  
 	}
 
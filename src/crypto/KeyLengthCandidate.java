@@ -0,0 +1,40 @@
+package crypto;
+
+/**
+ * A possible length for a Vigenere key, with the score given to it by the key length search.
+ * Candidates are ordered from the highest score to the lowest.
+ */
+public final class KeyLengthCandidate implements Comparable<KeyLengthCandidate> {
+	private final int length;
+	private final double score;
+
+	public KeyLengthCandidate(int length, double score) {
+		this.length = length;
+		this.score = score;
+	}
+
+	/**
+	 * @return the length of the key
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * @return the score of the length, higher is better
+	 */
+	public double score() {
+		return score;
+	}
+
+	@Override
+	public int compareTo(KeyLengthCandidate other) {
+		int byScore = Double.compare(other.score, score);
+		return (byScore != 0) ? byScore : Integer.compare(length, other.length);
+	}
+
+	@Override
+	public String toString() {
+		return length + " (" + score + ")";
+	}
+}
@@ -0,0 +1,366 @@
+package crypto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static crypto.Decrypt.ALPHABETSIZE;
+import static crypto.Decrypt.ENGLISHFREQUENCIES;
+import static crypto.Encrypt.SPACE;
+
+/**
+ * Attacks on the ciphers which cannot be broken with the frequencies of a single message : the One Time Pad and the
+ * basic CBC. The clear texts of this program only contain lower case letters and spaces.
+ * <p>
+ * In the basic CBC, each plain block j > 0 is the XOR of the cipher blocks j and j - 1, so the only secret is the first
+ * block : a known beginning of the clear text at least as long as the key gives the whole key (the iv).
+ * <p>
+ * A pad used for several messages is found without comparing every pair of messages : the bits 7 and 5 of a letter
+ * or a space are always 0 and 1, so in the XOR of two cipher texts sharing a pad they are all 0, and in each cipher text
+ * they are the bits of the pad. The messages are indexed by these bits over their first SIGNATURE_LENGTH bytes,
+ * and only the messages of a same bucket are compared, which makes the search grow linearly with the amount of messages.
+ * A message shorter than that has no full signature, it is looked up among the groups by the signature of as many
+ * first bytes as it has.
+ * The pad shared by a group is then recovered byte by byte from the frequencies of the bytes of the messages
+ * at the same position, and parts of it can be fixed with known words (cribs) dragged along the messages.
+ */
+public final class KnownPlaintextAttack {
+	// amount of first bytes whose pad bits index a message
+	public static final int SIGNATURE_LENGTH = 16;
+	// share of the bytes which have to decode to a letter or a space to accept a CBC block size
+	public static final double LETTER_THRESHOLD = 0.95;
+
+	// bits of the pad which every cipher byte reveals : bit 7 is 0 and bit 5 is 1 for letters and spaces
+	private static final int PAD_BITS = 0xA0;
+	private static final int PLAIN_BITS = 0x20;
+	private static final double SPACE_FREQUENCY = 0.18;
+	// log likelihood of each clear byte, very low for the bytes which are neither a letter nor a space
+	private static final double[] LOG_LIKELIHOOD = new double[ALPHABETSIZE];
+	static {
+		Arrays.fill(LOG_LIKELIHOOD, Math.log(1e-6));
+		LOG_LIKELIHOOD[SPACE] = Math.log(SPACE_FREQUENCY);
+		for (int i = 0; i < 26; i++) LOG_LIKELIHOOD['a' + i] = Math.log(ENGLISHFREQUENCIES[i] * (1 - SPACE_FREQUENCY));
+	}
+
+	private final List<byte[]> ciphers;
+	private final List<PadGroup> groups = new ArrayList<>();
+
+	/**
+	 * Indexes a corpus of One Time Pad cipher texts and recovers the pads used for several of them
+	 * @param ciphers the cipher texts, every pad being used from its first byte
+	 */
+	public KnownPlaintextAttack(List<byte[]> ciphers) {
+		assert(ciphers != null);
+		this.ciphers = new ArrayList<>(ciphers);
+		Map<Signature, List<Integer>> buckets = new HashMap<>();
+		List<Integer> shortMessages = new ArrayList<>();
+		for (int i = 0; i < this.ciphers.size(); i++) {
+			if (this.ciphers.get(i).length < SIGNATURE_LENGTH) shortMessages.add(i);
+			else buckets.computeIfAbsent(new Signature(this.ciphers.get(i), SIGNATURE_LENGTH), s -> new ArrayList<>()).add(i);
+		}
+		// messages which may share a pad, a single message is kept as well since a short message may join it
+		List<List<Integer>> clusters = new ArrayList<>();
+		for (List<Integer> bucket : buckets.values()) {
+			// a bucket may still mix pads whose first bytes agree by chance, the pairs are checked on their whole length
+			while (!bucket.isEmpty()) {
+				List<Integer> cluster = new ArrayList<>();
+				List<Integer> others = new ArrayList<>();
+				byte[] first = this.ciphers.get(bucket.get(0));
+				for (int index : bucket) (sharesPad(first, this.ciphers.get(index)) ? cluster : others).add(index);
+				clusters.add(cluster);
+				bucket = others;
+			}
+		}
+		addShortMessages(clusters, shortMessages);
+		for (List<Integer> cluster : clusters) {
+			if (cluster.size() < 2) continue;
+			Collections.sort(cluster);
+			groups.add(new PadGroup(cluster));
+		}
+		groups.sort((a, b) -> Integer.compare(a.messages[0], b.messages[0]));
+	}
+
+	/**
+	 * Helper method putting each message without a full signature in the cluster whose first message has the same
+	 * signature over the length of the message, or in a new cluster. The longest messages are placed first,
+	 * so that a new cluster can be indexed for the shorter ones which come after it.
+	 */
+	private void addShortMessages(List<List<Integer>> clusters, List<Integer> shortMessages) {
+		shortMessages.sort((a, b) -> Integer.compare(ciphers.get(b).length, ciphers.get(a).length));
+		// for each length of a short message, the clusters by the signature of that many first bytes of their first message
+		Map<Integer, Map<Signature, List<Integer>>> prefixes = new HashMap<>();
+		for (int index : shortMessages) prefixes.putIfAbsent(ciphers.get(index).length, new HashMap<>());
+		for (List<Integer> cluster : clusters) index(prefixes, cluster, SIGNATURE_LENGTH);
+		for (int index : shortMessages) {
+			byte[] cipher = ciphers.get(index);
+			List<Integer> cluster = prefixes.get(cipher.length).get(new Signature(cipher, cipher.length));
+			if (cluster != null) {
+				cluster.add(index);
+			} else {
+				cluster = new ArrayList<>();
+				cluster.add(index);
+				clusters.add(cluster);
+				index(prefixes, cluster, cipher.length);
+			}
+		}
+	}
+
+	/**
+	 * Helper method indexing a cluster by the signatures of its first message, for every length up to maxLength
+	 */
+	private void index(Map<Integer, Map<Signature, List<Integer>>> prefixes, List<Integer> cluster, int maxLength) {
+		byte[] first = ciphers.get(cluster.get(0));
+		for (Map.Entry<Integer, Map<Signature, List<Integer>>> prefix : prefixes.entrySet()) {
+			if (prefix.getKey() <= maxLength) prefix.getValue().putIfAbsent(new Signature(first, prefix.getKey()), cluster);
+		}
+	}
+
+	/**
+	 * @return the groups of messages encoded with a same pad, each with the part of the pad recovered so far
+	 */
+	public List<PadGroup> reusedPads() {
+		return Collections.unmodifiableList(groups);
+	}
+
+	/**
+	 * Method dragging a known word along every message sharing a pad.
+	 * A position is kept when the pad it gives decodes every other message of the group to letters and spaces there,
+	 * on at least twice the length of the crib, and the recovered bytes then replace the ones found with the frequencies.
+	 * A wrong position decodes a byte to text about one time in three, so it is very unlikely to be kept.
+	 * @param crib a word or a part of sentence expected in the clear texts, for instance " the "
+	 * @return the amount of positions where the crib was placed
+	 */
+	public int dragCrib(byte[] crib) {
+		assert(crib != null && crib.length > 0);
+		int placed = 0;
+		for (PadGroup group : groups) placed += group.dragCrib(crib);
+		return placed;
+	}
+
+	/**
+	 * Method decoding a message of the corpus with the pad recovered for its group
+	 * @param index the index of the message in the corpus
+	 * @return the clear text, or null if the pad of the message is not shared with another message
+	 */
+	public byte[] decrypt(int index) {
+		for (PadGroup group : groups) {
+			for (int message : group.messages) if (message == index) return group.decrypt(ciphers.get(index));
+		}
+		return null;
+	}
+
+	/**
+	 * Helper method checking that the XOR of two cipher texts looks like the XOR of two clear texts
+	 */
+	private static boolean sharesPad(byte[] a, byte[] b) {
+		int length = Math.min(a.length, b.length);
+		for (int i = 0; i < length; i++) if (((a[i] ^ b[i]) & PAD_BITS) != 0) return false;
+		return true;
+	}
+
+	//-----------------------CBC-------------------------
+
+	/**
+	 * Method recovering the key of a basic CBC encoding from a known beginning of the clear text
+	 * @param cipher      the byte array representing the encoded text
+	 * @param knownPrefix the first bytes of the clear text
+	 * @return the key (iv), or null if no key length decodes the text (a message of a single block has no second block
+	 * to find it with) or if the known beginning is shorter than the key
+	 */
+	public static byte[] breakCBC(byte[] cipher, byte[] knownPrefix) {
+		assert(cipher != null && knownPrefix != null);
+		int blockSize = cbcBlockSize(cipher, Math.max(knownPrefix.length, Decrypt.MAX_KEY_LENGTH));
+		if (blockSize == 0 || blockSize > knownPrefix.length) return null;
+		return cbcKey(cipher, knownPrefix, blockSize);
+	}
+
+	/**
+	 * Method computing the key of a basic CBC encoding : the first cipher block is the first plain block XOR the key
+	 * @param cipher      the byte array representing the encoded text
+	 * @param knownPrefix the first bytes of the clear text, at least blockSize of them
+	 * @param blockSize   the length of the key
+	 * @return the key (iv)
+	 */
+	public static byte[] cbcKey(byte[] cipher, byte[] knownPrefix, int blockSize) {
+		assert(blockSize > 0 && blockSize <= knownPrefix.length && blockSize <= cipher.length);
+		byte[] iv = new byte[blockSize];
+		for (int i = 0; i < blockSize; i++) iv[i] = (byte) (cipher[i] ^ knownPrefix[i]);
+		return iv;
+	}
+
+	/**
+	 * Method finding the length of the key of a basic CBC encoding without knowing anything of the clear text :
+	 * with the right length, every block after the first one decodes to letters and spaces by XOR with the previous one
+	 * @param cipher       the byte array representing the encoded text
+	 * @param maxBlockSize the longest key length tried
+	 * @return the length of the key, or 0 if no length decodes the text
+	 */
+	public static int cbcBlockSize(byte[] cipher, int maxBlockSize) {
+		int best = 0;
+		double bestShare = LETTER_THRESHOLD;
+		for (int blockSize = 1; blockSize <= maxBlockSize && blockSize < cipher.length; blockSize++) {
+			int letters = 0;
+			for (int i = blockSize; i < cipher.length; i++) if (isText((byte) (cipher[i] ^ cipher[i - blockSize]))) letters++;
+			double share = (double) letters / (cipher.length - blockSize);
+			if (share > bestShare) {
+				bestShare = share;
+				best = blockSize;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return true if b is a lower case letter or a space
+	 */
+	private static boolean isText(byte b) {
+		return (b >= 'a' && b <= 'z') || b == SPACE;
+	}
+
+	//-----------------------Groups-------------------------
+
+	/**
+	 * Key of the index of the messages : the pad bits of their first bytes, which messages sharing a pad have in common
+	 */
+	private static final class Signature {
+		private final byte[] bits;
+
+		Signature(byte[] cipher, int length) {
+			assert(cipher.length >= length);
+			bits = new byte[length];
+			for (int i = 0; i < bits.length; i++) bits[i] = (byte) (cipher[i] & PAD_BITS);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Signature && Arrays.equals(bits, ((Signature) other).bits);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(bits);
+		}
+	}
+
+	/**
+	 * Messages encoded with a same pad, and the part of the pad recovered from them
+	 */
+	public final class PadGroup {
+		private final int[] messages;
+		private final byte[] pad;
+		private final boolean[] fromCrib;
+
+		PadGroup(List<Integer> indices) {
+			messages = indices.stream().mapToInt(Integer::intValue).toArray();
+			int length = 0;
+			for (int message : messages) length = Math.max(length, ciphers.get(message).length);
+			pad = new byte[length];
+			fromCrib = new boolean[length];
+			for (int position = 0; position < length; position++) pad[position] = padByte(position);
+		}
+
+		/**
+		 * @return the indices in the corpus of the messages of this group
+		 */
+		public int[] messages() {
+			return messages.clone();
+		}
+
+		/**
+		 * @return the pad recovered so far, as long as the longest message of the group
+		 */
+		public byte[] pad() {
+			return pad.clone();
+		}
+
+		/**
+		 * @param position a position in the pad
+		 * @return true if the byte of the pad at this position was given by a crib rather than by the frequencies
+		 */
+		public boolean isFromCrib(int position) {
+			return fromCrib[position];
+		}
+
+		/**
+		 * Method decoding a cipher text with the pad recovered so far
+		 * @param cipher the cipher text of a message of this group
+		 * @return the clear text
+		 */
+		public byte[] decrypt(byte[] cipher) {
+			return Encrypt.oneTimePad(cipher, pad);
+		}
+
+		/**
+		 * Helper method choosing the pad byte of a position which gives the most likely clear bytes in every message.
+		 * Only the 64 bytes with the pad bits of the position are tried.
+		 */
+		private byte padByte(int position) {
+			byte known = 0;
+			for (int message : messages) {
+				byte[] cipher = ciphers.get(message);
+				if (position < cipher.length) {
+					known = (byte) ((cipher[position] & PAD_BITS) ^ PLAIN_BITS);
+					break;
+				}
+			}
+			int best = known;
+			double bestScore = Double.NEGATIVE_INFINITY;
+			for (int free = 0; free < ALPHABETSIZE; free++) {
+				if ((free & PAD_BITS) != 0) continue;
+				byte candidate = (byte) (known | free);
+				double score = 0;
+				for (int message : messages) {
+					byte[] cipher = ciphers.get(message);
+					if (position < cipher.length) score += LOG_LIKELIHOOD[(cipher[position] ^ candidate) & 0xFF];
+				}
+				if (score > bestScore) {
+					bestScore = score;
+					best = candidate;
+				}
+			}
+			return (byte) best;
+		}
+
+		/**
+		 * Helper method placing a crib at every position of every message of this group where it is consistent
+		 */
+		private int dragCrib(byte[] crib) {
+			int placed = 0;
+			for (int message : messages) {
+				byte[] cipher = ciphers.get(message);
+				for (int start = 0; start + crib.length <= cipher.length; start++) {
+					if (fits(message, crib, start)) {
+						for (int i = 0; i < crib.length; i++) {
+							pad[start + i] = (byte) (cipher[start + i] ^ crib[i]);
+							fromCrib[start + i] = true;
+						}
+						placed++;
+					}
+				}
+			}
+			return placed;
+		}
+
+		/**
+		 * Helper method checking if a crib placed in a message at a position decodes the other messages to text,
+		 * on enough bytes for a wrong position to be unlikely
+		 */
+		private boolean fits(int message, byte[] crib, int start) {
+			byte[] cipher = ciphers.get(message);
+			int checked = 0;
+			for (int other : messages) {
+				if (other == message) continue;
+				byte[] otherCipher = ciphers.get(other);
+				for (int i = 0; i < crib.length && start + i < otherCipher.length; i++) {
+					int position = start + i;
+					if (!isText((byte) (otherCipher[position] ^ cipher[position] ^ crib[i]))) return false;
+					checked++;
+				}
+			}
+			return checked >= 2 * crib.length;
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package crypto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A statistical model of a language, giving the log probability of the n-grams of lower case letters.
+ * Used to score candidate clear texts : the higher the score, the more the text looks like the language.
+ * Implementations are immutable and can be shared between threads.
+ */
+public interface LanguageModel {
+
+	/**
+	 * @return the amount of letters in a gram : 1 for unigrams, 2 for bigrams, 4 for quadgrams...
+	 */
+	int order();
+
+	/**
+	 * @param gram the letters of a gram packed in base 26, the first letter being the most significant digit
+	 * @return the base 10 log probability of the gram
+	 */
+	float logProbability(int gram);
+
+	/**
+	 * @return the log probability given to grams never seen, also used as the penalty of a byte which is not a letter
+	 */
+	float floor();
+
+	/**
+	 * Method scoring a text : the sum of the log probabilities of all its grams.
+	 * Grams are made of the letters 'a' to 'z' and go across spaces. Any other byte cannot be part of the clear text :
+	 * it is skipped as well, but costs the floor.
+	 * @param text the array containing the text
+	 * @param off  the offset of the text
+	 * @param len  the length of the text
+	 * @return the score, higher is better
+	 */
+	default double score(byte[] text, int off, int len) {
+		int order = order();
+		int modulo = gramCount();
+		int gram = 0;
+		int letters = 0;
+		double score = 0;
+		float floor = floor();
+		for (int i = off; i < off + len; i++) {
+			if (text[i] == Encrypt.SPACE) continue;
+			int letter = text[i] - 'a';
+			if (letter < 0 || letter >= 26) {
+				score += floor;
+				continue;
+			}
+			gram = (gram * 26 + letter) % modulo;
+			if (++letters >= order) score += logProbability(gram);
+		}
+		return score;
+	}
+
+	/**
+	 * Method scoring the clear text of a Vigenere cipher text without spaces, decoded on the fly instead of into a new array.
+	 * Same score as {@link #score(byte[], int, int)} on the clear text.
+	 * @param cipher the array whose first length bytes are the encoded text without spaces
+	 * @param length the amount of bytes of the encoded text
+	 * @param key    the inverse key, byte i of the clear text is cipher[i] + key[i % key.length]
+	 * @return the score, higher is better
+	 */
+	default double score(byte[] cipher, int length, byte[] key) {
+		int order = order();
+		int modulo = gramCount();
+		int gram = 0;
+		int letters = 0;
+		double score = 0;
+		float floor = floor();
+		for (int i = 0, k = 0; i < length; i++) {
+			byte plain = (byte) (cipher[i] + key[k]);
+			if (++k == key.length) k = 0;
+			if (plain == Encrypt.SPACE) continue;
+			int letter = plain - 'a';
+			if (letter < 0 || letter >= 26) {
+				score += floor;
+				continue;
+			}
+			gram = (gram * 26 + letter) % modulo;
+			if (++letters >= order) score += logProbability(gram);
+		}
+		return score;
+	}
+
+	/**
+	 * @return the amount of possible grams, 26^order
+	 */
+	private int gramCount() {
+		int count = 1;
+		for (int i = 0; i < order(); i++) count *= 26;
+		return count;
+	}
+
+	/**
+	 * @param text the text to score
+	 * @return the sum of the log probabilities of all the grams of the text
+	 */
+	default double score(byte[] text) {
+		return score(text, 0, text.length);
+	}
+
+	/**
+	 * Method giving the shared English model of an order, memory mapped from res/english-n.ngrams.
+	 * The models of orders 1 to 4 are shipped, the files are never written.
+	 * @param order the amount of letters in a gram, between 1 and 4
+	 * @return the model, shared by all callers
+	 */
+	static LanguageModel english(int order) {
+		try {
+			return NGramModel.english(order);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package crypto;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link LanguageModel} reading its log probabilities from a memory mapped binary file.
+ * The file is a header (magic number, order, floor) followed by one float per possible gram,
+ * in the order of the grams packed in base 26, so the probability of a gram is a single load at its index.
+ * The mapping is read only and shared by every thread using the model.
+ * The English models of res/ are trained on the English part of the Europarl corpus (about 850 000 letters),
+ * they are only read, rebuilding one is done with {@link #main}.
+ */
+public final class NGramModel implements LanguageModel {
+	public static final int MAX_ORDER = 5;
+	private static final int MAGIC = 0x4E47524D; // "NGRM"
+	private static final int HEADER_SIZE = 12;
+	private static final Map<Integer, NGramModel> ENGLISH = new ConcurrentHashMap<>();
+
+	private final int order;
+	private final float floor;
+	private final FloatBuffer logProbabilities;
+
+	private NGramModel(int order, float floor, FloatBuffer logProbabilities) {
+		this.order = order;
+		this.floor = floor;
+		this.logProbabilities = logProbabilities;
+	}
+
+	/**
+	 * Method memory mapping a model file
+	 * @param file the file written by {@link #write}
+	 * @return the model
+	 */
+	public static NGramModel load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (channel.size() < HEADER_SIZE || mapped.getInt(0) != MAGIC) throw new IOException(file + " is not a n-gram model");
+			int order = mapped.getInt(4);
+			float floor = mapped.getFloat(8);
+			if (order < 1 || order > MAX_ORDER || channel.size() != HEADER_SIZE + 4L * gramCount(order))
+				throw new IOException(file + " has a wrong size for its order");
+			mapped.position(HEADER_SIZE);
+			return new NGramModel(order, floor, mapped.slice().asFloatBuffer());
+		}
+	}
+
+	/**
+	 * Method writing a model file from the log probability of every gram
+	 * @param file             the file to write
+	 * @param order            the amount of letters in a gram
+	 * @param logProbabilities the log probability of each gram, indexed by the gram packed in base 26
+	 * @param floor            the log probability given to grams never seen
+	 */
+	public static void write(Path file, int order, float[] logProbabilities, float floor) throws IOException {
+		assert(logProbabilities.length == gramCount(order));
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(order);
+			out.writeFloat(floor);
+			for (float logProbability : logProbabilities) out.writeFloat(logProbability);
+		}
+	}
+
+	/**
+	 * Method computing the log probabilities of the grams of a text, grams never seen get the floor
+	 * @param text  the training text, only its letters 'a' to 'z' are used
+	 * @param order the amount of letters in a gram
+	 * @return the log probability of each gram, followed by the floor
+	 */
+	public static float[] train(byte[] text, int order) {
+		int grams = gramCount(order);
+		long[] counts = new long[grams];
+		long total = 0;
+		int gram = 0;
+		int letters = 0;
+		for (byte b : text) {
+			int letter = b - 'a';
+			if (letter < 0 || letter >= 26) continue;
+			gram = (gram * 26 + letter) % grams;
+			if (++letters >= order) {
+				counts[gram]++;
+				total++;
+			}
+		}
+		float[] logProbabilities = new float[grams + 1];
+		float floor = (float) Math.log10(0.01 / Math.max(total, 1));
+		for (int i = 0; i < grams; i++)
+			logProbabilities[i] = (counts[i] == 0) ? floor : (float) Math.log10((double) counts[i] / total);
+		logProbabilities[grams] = floor;
+		return logProbabilities;
+	}
+
+	/**
+	 * Method writing the model of an order trained on a corpus
+	 * @param corpus the training text, cleaned with {@link Helper#cleanString} before counting
+	 * @param order  the amount of letters in a gram
+	 * @param file   the model file to write
+	 */
+	public static void build(Path corpus, int order, Path file) throws IOException {
+		assert(order >= 1 && order <= MAX_ORDER);
+		String text = new String(Files.readAllBytes(corpus), StandardCharsets.UTF_8);
+		float[] trained = train(Helper.stringToBytes(Helper.cleanString(text)), order);
+		write(file, order, Arrays.copyOf(trained, trained.length - 1), trained[trained.length - 1]);
+	}
+
+	/**
+	 * Builds a model file from a corpus, arguments : corpus order file
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 3) {
+			System.err.println("Usage : NGramModel <corpus> <order> <file>");
+			return;
+		}
+		build(Paths.get(args[0]), Integer.parseInt(args[1]), Paths.get(args[2]));
+	}
+
+	/**
+	 * Method giving the shared English model of an order, see {@link LanguageModel#english(int)}
+	 */
+	static NGramModel english(int order) throws IOException {
+		assert(order >= 1 && order <= MAX_ORDER);
+		NGramModel model = ENGLISH.get(order);
+		if (model != null) return model;
+		synchronized (ENGLISH) {
+			model = ENGLISH.get(order);
+			if (model == null) {
+				Path file = Paths.get("res", "english-" + order + ".ngrams");
+				if (!Files.exists(file)) throw new NoSuchFileException(file.toString(), null, "no English model of order " + order);
+				model = load(file);
+				ENGLISH.put(order, model);
+			}
+			return model;
+		}
+	}
+
+	/**
+	 * @return the amount of possible grams of an order, 26^order
+	 */
+	public static int gramCount(int order) {
+		int count = 1;
+		for (int i = 0; i < order; i++) count *= 26;
+		return count;
+	}
+
+	@Override
+	public int order() {
+		return order;
+	}
+
+	@Override
+	public float floor() {
+		return floor;
+	}
+
+	@Override
+	public float logProbability(int gram) {
+		return logProbabilities.get(gram);
+	}
+}
@@ -0,0 +1,70 @@
+package crypto;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * One Time Pad stream whose pad is never held as a whole : it is read from a {@link PadSource} (a pad file or channel,
+ * or a keyed keystream) chunk by chunk as the message goes through, so the memory used stays the size of one chunk
+ * whatever the size of the message. The stream records how many bytes of the pad it has used,
+ * so that the next message can start after them and no pad byte is ever used twice.
+ */
+public final class OneTimePadStream extends StreamCipher {
+	private final PadSource pad;
+	// pad bytes of the chunk being processed, erased once used
+	private final byte[] chunk;
+	private long padPosition;
+
+	/**
+	 * @param pad         the source of the pad bytes, read in order
+	 * @param chunkSize   the amount of pad bytes held at once
+	 * @param padPosition the position in the pad of the first byte the source gives, to keep track of the used bytes
+	 */
+	OneTimePadStream(PadSource pad, int chunkSize, long padPosition) {
+		assert(pad != null && chunkSize > 0 && padPosition >= 0);
+		this.pad = pad;
+		this.chunk = new byte[chunkSize];
+		this.padPosition = padPosition;
+	}
+
+	/**
+	 * @return the position in the pad of the next byte to use, that is the first byte which has never been used
+	 */
+	public long padPosition() {
+		return padPosition;
+	}
+
+	@Override
+	public void update(byte[] src, int srcOff, int len, byte[] dst, int dstOff) {
+		while (len > 0) {
+			int n = Math.min(len, chunk.length);
+			pad.nextBytes(chunk, 0, n);
+			Encrypt.oneTimePad(src, srcOff, dst, dstOff, n, chunk, 0);
+			used(n);
+			srcOff += n;
+			dstOff += n;
+			len -= n;
+		}
+	}
+
+	@Override
+	public void update(ByteBuffer src, ByteBuffer dst) {
+		int limit = src.limit();
+		while (src.hasRemaining()) {
+			int n = Math.min(src.remaining(), chunk.length);
+			pad.nextBytes(chunk, 0, n);
+			src.limit(src.position() + n);
+			Encrypt.oneTimePad(src, dst, chunk, 0);
+			src.limit(limit);
+			used(n);
+		}
+	}
+
+	/**
+	 * Helper method erasing the pad bytes which have just been used, and moving the position in the pad
+	 */
+	private void used(int n) {
+		Arrays.fill(chunk, 0, n, (byte) 0);
+		padPosition += n;
+	}
+}
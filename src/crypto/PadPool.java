@@ -0,0 +1,91 @@
+package crypto;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pad source handing out bytes generated in advance by a background thread, so that encoding a message does not wait
+ * for its pad to be generated. The bytes are kept in chunks, a request takes what is left of the current chunk and then
+ * the next ones, and a given byte is handed out only once. When the pool runs dry the bytes are generated directly
+ * by the calling thread instead of waiting for the background thread.
+ * The lock of the pool is only held to take bytes out of a chunk, so a thread generating its own bytes
+ * does not hold back the others.
+ */
+public final class PadPool extends PadSource implements AutoCloseable {
+	private final PadSource source;
+	private final BlockingQueue<byte[]> ready;
+	private final Thread filler;
+
+	// chunk being handed out, and the amount of its bytes already given
+	private byte[] current = new byte[0];
+	private int used = 0;
+
+	/**
+	 * @param source    the source filling the pool
+	 * @param chunkSize the size of the chunks generated in advance
+	 * @param chunks    the amount of chunks kept in advance
+	 */
+	public PadPool(PadSource source, int chunkSize, int chunks) {
+		assert(source != null && chunkSize > 0 && chunks > 0);
+		this.source = source;
+		this.ready = new ArrayBlockingQueue<>(chunks);
+		this.filler = new Thread(() -> {
+			try {
+				while (!Thread.currentThread().isInterrupted()) ready.put(source.generate(chunkSize));
+			} catch (InterruptedException e) {
+				// closed
+			}
+		}, "pad-pool");
+		filler.setDaemon(true);
+		filler.start();
+	}
+
+	@Override
+	public void nextBytes(byte[] bytes, int off, int len) {
+		while (len > 0) {
+			int taken = take(bytes, off, len);
+			if (taken == 0) {
+				// never wait for the background thread, and never generate while holding the lock
+				source.nextBytes(bytes, off, len);
+				return;
+			}
+			off += taken;
+			len -= taken;
+		}
+	}
+
+	/**
+	 * Helper method handing out the bytes left in the current chunk, or in the next ready one
+	 * @return the amount of bytes copied, 0 if the pool is dry
+	 */
+	private synchronized int take(byte[] bytes, int off, int len) {
+		if (used == current.length) {
+			byte[] next = ready.poll();
+			if (next == null) return 0;
+			current = next;
+			used = 0;
+		}
+		int taken = Math.min(len, current.length - used);
+		System.arraycopy(current, used, bytes, off, taken);
+		// the handed out bytes are erased from the pool
+		Arrays.fill(current, used, used + taken, (byte) 0);
+		used += taken;
+		return taken;
+	}
+
+	/**
+	 * @return the amount of chunks generated in advance and not handed out yet
+	 */
+	public int available() {
+		return ready.size();
+	}
+
+	/**
+	 * Stops the background thread, the pool then generates every request directly
+	 */
+	@Override
+	public void close() {
+		filler.interrupt();
+	}
+}
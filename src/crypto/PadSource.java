@@ -0,0 +1,217 @@
+package crypto;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Source of the random bytes of the One Time Pads and the CBC ivs. Pads are filled in bulk rather than byte by byte.
+ * <ul>
+ * <li>{@link #secure()} reads a {@link SecureRandom}, the strongest source, limited by the entropy of the system</li>
+ * <li>{@link #chaCha20()} gives each thread its own ChaCha20 keystream keyed from a SecureRandom :
+ * strong as well, much faster, and the threads never wait on each other</li>
+ * <li>{@link #keystream(byte[], byte[])} is the ChaCha20 keystream of a 256 bits key and a nonce, which the receiver
+ * of a message generates again from the same key and nonce</li>
+ * <li>{@link #seeded(long)} is a ChaCha20 keystream keyed from a 64 bits seed, which gives the same pads on every run, for tests only</li>
+ * <li>{@link #pooled(PadSource, int, int)} keeps pads of another source generated in advance by a background thread</li>
+ * <li>{@link #fromChannel(ReadableByteChannel)} reads a pad prepared beforehand, for instance from a file</li>
+ * </ul>
+ * Every source can be used by several threads at once, except a channel which gives its bytes in order.
+ */
+public abstract class PadSource {
+	// sizes of the key and the nonce of a keystream
+	public static final int KEY_SIZE = ChaCha20.KEY_SIZE;
+	public static final int NONCE_SIZE = ChaCha20.NONCE_SIZE;
+
+	/**
+	 * Method to create a source reading a SecureRandom, the DRBG one when the JVM has it
+	 * @return a new pad source
+	 */
+	public static PadSource secure() {
+		SecureRandom random;
+		try {
+			random = SecureRandom.getInstance("DRBG");
+		} catch (NoSuchAlgorithmException e) {
+			random = new SecureRandom();
+		}
+		return secure(random);
+	}
+
+	/**
+	 * Method to create a source reading a given SecureRandom, for instance a NativePRNG one
+	 * @param random the generator, which has to be thread safe
+	 * @return a new pad source
+	 */
+	public static PadSource secure(SecureRandom random) {
+		assert(random != null);
+		return new Secure(random);
+	}
+
+	/**
+	 * Method to create a source giving each thread its own ChaCha20 keystream, keyed from a SecureRandom
+	 * @return a new pad source
+	 */
+	public static PadSource chaCha20() {
+		return new Keystreams(secure());
+	}
+
+	/**
+	 * Method to create the ChaCha20 keystream of a key and a nonce, giving the same bytes for the same key and nonce,
+	 * so that a message encoded with it as a pad is decoded by generating the keystream again.
+	 * A key and nonce pair must never encode two messages, the second one would reuse the pad.
+	 * @param key   the secret key, KEY_SIZE (32) random bytes
+	 * @param nonce the nonce, NONCE_SIZE (12) bytes, unique for each message encoded with the key
+	 * @return a new pad source
+	 */
+	public static PadSource keystream(byte[] key, byte[] nonce) {
+		assert(key != null && key.length == KEY_SIZE && nonce != null && nonce.length == NONCE_SIZE);
+		return new Keystream(new ChaCha20(key, nonce, 0));
+	}
+
+	/**
+	 * Method to create a deterministic source, giving the same bytes for the same seed, for tests only :
+	 * a 64 bits seed is far too small a key for real pads, which use {@link #keystream(byte[], byte[])}
+	 * @param seed the seed the ChaCha20 key is made of
+	 * @return a new pad source
+	 */
+	public static PadSource seeded(long seed) {
+		byte[] key = new byte[KEY_SIZE];
+		for (int i = 0; i < Long.BYTES; i++) key[i] = (byte) (seed >>> (8 * i));
+		return keystream(key, new byte[NONCE_SIZE]);
+	}
+
+	/**
+	 * Method to create a source keeping pads of another source generated in advance
+	 * @param source    the source filling the pool
+	 * @param chunkSize the size of the pads generated in advance, larger requests are split across them
+	 * @param chunks    the amount of pads kept in advance
+	 * @return a new pool, whose background thread stops when it is closed
+	 */
+	public static PadPool pooled(PadSource source, int chunkSize, int chunks) {
+		return new PadPool(source, chunkSize, chunks);
+	}
+
+	/**
+	 * Method to create a source reading the bytes of a pad from a channel, in order.
+	 * Reading past the end of the channel throws an UncheckedIOException, a pad is never shorter than the message.
+	 * @param channel the channel giving the pad, positioned at its first unused byte
+	 * @return a new pad source
+	 */
+	public static PadSource fromChannel(ReadableByteChannel channel) {
+		assert(channel != null);
+		return new Channel(channel);
+	}
+
+	/**
+	 * @return the source used by {@link Encrypt#generatePad(int)} : a pool of per thread ChaCha20 keystreams
+	 */
+	public static PadSource defaultSource() {
+		return DefaultHolder.SOURCE;
+	}
+
+	/**
+	 * Fills a part of an array with random bytes
+	 * @param bytes the array to fill
+	 * @param off   the offset of the first byte
+	 * @param len   the amount of bytes
+	 */
+	public abstract void nextBytes(byte[] bytes, int off, int len);
+
+	/**
+	 * Fills an array with random bytes
+	 * @param bytes the array to fill
+	 */
+	public void nextBytes(byte[] bytes) {
+		nextBytes(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Generates a new pad
+	 * @param size the size of the pad
+	 * @return random bytes in an array
+	 */
+	public byte[] generate(int size) {
+		byte[] pad = new byte[size];
+		nextBytes(pad, 0, size);
+		return pad;
+	}
+
+	//-----------------------Implementations-------------------------
+
+	// created on first use, so that the background thread only starts if pads are generated
+	private static final class DefaultHolder {
+		static final PadSource SOURCE = pooled(chaCha20(), 1 << 16, 16);
+	}
+
+	private static final class Secure extends PadSource {
+		private final SecureRandom random;
+
+		Secure(SecureRandom random) {
+			this.random = random;
+		}
+
+		@Override
+		public void nextBytes(byte[] bytes, int off, int len) {
+			if (off == 0 && len == bytes.length) {
+				random.nextBytes(bytes);
+			} else {
+				byte[] part = new byte[len];
+				random.nextBytes(part);
+				System.arraycopy(part, 0, bytes, off, len);
+			}
+		}
+	}
+
+	private static final class Keystreams extends PadSource {
+		private final ThreadLocal<ChaCha20> keystreams;
+
+		Keystreams(PadSource seeds) {
+			keystreams = ThreadLocal.withInitial(() -> {
+				byte[] key = seeds.generate(ChaCha20.KEY_SIZE);
+				return new ChaCha20(key, seeds.generate(ChaCha20.NONCE_SIZE), 0);
+			});
+		}
+
+		@Override
+		public void nextBytes(byte[] bytes, int off, int len) {
+			keystreams.get().nextBytes(bytes, off, len);
+		}
+	}
+
+	private static final class Channel extends PadSource {
+		private final ReadableByteChannel channel;
+
+		Channel(ReadableByteChannel channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		public void nextBytes(byte[] bytes, int off, int len) {
+			ByteBuffer buffer = ByteBuffer.wrap(bytes, off, len);
+			try {
+				while (buffer.hasRemaining()) {
+					if (channel.read(buffer) < 0) throw new EOFException("The pad is shorter than the message");
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private static final class Keystream extends PadSource {
+		private final ChaCha20 keystream;
+
+		Keystream(ChaCha20 keystream) {
+			this.keystream = keystream;
+		}
+
+		@Override
+		public synchronized void nextBytes(byte[] bytes, int off, int len) {
+			keystream.nextBytes(bytes, off, len);
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package crypto;
+
+/**
+ * A key found by a scored brute force, with the score of the clear text it gives.
+ * The clear text itself is only computed when asked for. Keys are ordered from the highest score to the lowest.
+ */
+public final class ScoredKey implements Comparable<ScoredKey> {
+	private final int type;
+	private final byte key;
+	private final double score;
+
+	/**
+	 * @param type  the cipher the key is for : 0 = Caesar, 2 = XOR
+	 * @param key   the key to apply to the cipher text to decode it
+	 * @param score the score of the resulting clear text
+	 */
+	public ScoredKey(int type, byte key, double score) {
+		assert(type == Encrypt.CAESAR || type == Encrypt.XOR);
+		this.type = type;
+		this.key = key;
+		this.score = score;
+	}
+
+	public int type() {
+		return type;
+	}
+
+	/**
+	 * @return the key to apply to the cipher text to decode it, as for the rows of the brute force methods
+	 */
+	public byte key() {
+		return key;
+	}
+
+	public double score() {
+		return score;
+	}
+
+	/**
+	 * Method decoding a cipher text with this key
+	 * @param cipher the byte array representing the encoded text
+	 * @return the clear text
+	 */
+	public byte[] decrypt(byte[] cipher) {
+		return (type == Encrypt.CAESAR) ? Encrypt.caesar(cipher, key) : Encrypt.xor(cipher, key);
+	}
+
+	@Override
+	public int compareTo(ScoredKey other) {
+		int byScore = Double.compare(other.score, score);
+		return (byScore != 0) ? byScore : Integer.compare(key & 0xFF, other.key & 0xFF);
+	}
+
+	@Override
+	public String toString() {
+		return (key & 0xFF) + " (" + score + ")";
+	}
+}
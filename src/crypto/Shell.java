@@ -145,7 +145,7 @@ public class Shell {
 		while (!passed) {
 			System.out.println("Which algorithm do you want to use to decipher your text?");
 			System.out.println("\tPossible inputs: caesar (ca | 0), vigenere (vi | 1), xor (2), simplified Cipher Block Chaining (sCBC | 4)");
-			System.out.println("\t\tIMPORTANT: To decipher a text ciphered by a sCBC algorithm, the program requires the key, if you do not have the key, the cipher cannot be brute forced without using a lot of resources.");
+			System.out.println("\t\tIMPORTANT: To decipher a text ciphered by a sCBC algorithm without the key, the program requires the beginning of the text, at least as long as the key.");
 			try {
 				algorithm = reader().readLine().toLowerCase();
 			} catch (IOException ignored) {}
@@ -190,17 +190,26 @@ public class Shell {
 			else if (key.equals("none")) {
 				plainText = breakCipher(cipherText, algCode);
 				switch (algCode) {
-					case CAESAR: case VIGENERE:
+					case CAESAR: case VIGENERE: case XOR:
 						messageConfirmation = "Your ciphered text has been broken using english frequencies.";
 						passed = true;
 						break;
-					case XOR:
-						messageConfirmation = "Your ciphered text has been brute forced.";
-						passed = true;
-						break;
 					case CBC:
-						System.out.println("Cannot brute force sCBC. Starting decipher process again...\n");
-						decrypt();
+						System.out.println("What is the beginning of the deciphered text? (Enter a text)");
+						String knownText = null;
+						try {
+							knownText = reader().readLine();
+						} catch (IOException ignored) {}
+						if (knownText == null) return;
+						byte[] iv = KnownPlaintextAttack.breakCBC(stringToBytes(cipherText), stringToBytes(knownText));
+						if (iv == null) {
+							System.out.println("The key length could not be found, or the beginning of the text is shorter than the key. Starting decipher process again...\n");
+							decrypt();
+							return;
+						}
+						plainText = bytesToString(decryptCBC(stringToBytes(cipherText), iv));
+						messageConfirmation = "Your ciphered text has been broken using the beginning of the text. The key was: " + bytesToString(iv);
+						passed = true;
 						break;
 				}
 			} else {
@@ -0,0 +1,317 @@
+package crypto;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Stateful, chunk by chunk version of the ciphers of {@link Encrypt} and {@link Decrypt}.
+ * Feeding a message to {@link #update} in chunks of any size gives exactly the same bytes as
+ * the corresponding array method called on the whole message, while only keeping a constant amount of state
+ * (the Vigenere key position, the One Time Pad position or the previous CBC block).
+ */
+public abstract class StreamCipher {
+
+	/**
+	 * Method to create a Caesar stream, equivalent to {@link Encrypt#caesar(byte[], byte, boolean)}
+	 * @param key           the byte corresponding to the char we use to shift
+	 * @param spaceEncoding if false, then spaces are not encoded
+	 * @return a new stream cipher
+	 */
+	public static StreamCipher caesar(byte key, boolean spaceEncoding) {
+		return new Caesar(key, spaceEncoding);
+	}
+
+	/**
+	 * Method to create a XOR stream, equivalent to {@link Encrypt#xor(byte[], byte, boolean)}
+	 * @param key           the byte we will use to XOR
+	 * @param spaceEncoding if false, then spaces are not encoded
+	 * @return a new stream cipher
+	 */
+	public static StreamCipher xor(byte key, boolean spaceEncoding) {
+		return new Xor(key, spaceEncoding);
+	}
+
+	/**
+	 * Method to create a Vigenere stream, equivalent to {@link Encrypt#vigenere(byte[], byte[], boolean)}
+	 * @param keyword       the byte array representing the key used to perform the shift
+	 * @param spaceEncoding if false, then spaces are not encoded and do not consume the keyword
+	 * @return a new stream cipher
+	 */
+	public static StreamCipher vigenere(byte[] keyword, boolean spaceEncoding) {
+		assert(keyword != null && keyword.length > 0);
+		return new Vigenere(keyword.clone(), spaceEncoding);
+	}
+
+	/**
+	 * Method to create a One Time Pad stream, equivalent to {@link Encrypt#oneTimePad(byte[], byte[])}
+	 * @param pad the one time pad, at least as long as the whole message
+	 * @return a new stream cipher
+	 */
+	public static StreamCipher oneTimePad(byte[] pad) {
+		assert(pad != null);
+		return new OneTimePad(pad.clone());
+	}
+
+	/**
+	 * Method to create a One Time Pad stream reading its pad from a source as the message goes through,
+	 * so that the pad is never held as a whole : a pad file read through {@link PadSource#fromChannel},
+	 * or the keystream of {@link PadSource#keystream(byte[], byte[])},
+	 * which the receiver generates again from the same key and nonce
+	 * @param pad the source of the pad bytes, at least as many as the whole message
+	 * @return a new stream cipher, which records how far into the pad it has got
+	 */
+	public static OneTimePadStream oneTimePad(PadSource pad) {
+		return oneTimePad(pad, 0);
+	}
+
+	/**
+	 * Method to create a One Time Pad stream reading its pad from a source as the message goes through
+	 * @param pad         the source of the pad bytes, at least as many as the whole message
+	 * @param padPosition the position in the pad of the first byte the source gives, when earlier bytes were used before
+	 * @return a new stream cipher, which records how far into the pad it has got
+	 */
+	public static OneTimePadStream oneTimePad(PadSource pad, long padPosition) {
+		return new OneTimePadStream(pad, CipherOutputStream.DEFAULT_CHUNK_SIZE, padPosition);
+	}
+
+	/**
+	 * Method to create a CBC encoding stream, equivalent to {@link Encrypt#cbc(byte[], byte[])}
+	 * @param iv the pad of size BLOCKSIZE we use to start the chain encoding
+	 * @return a new stream cipher
+	 */
+	public static StreamCipher cbc(byte[] iv) {
+		assert(iv != null && iv.length > 0);
+		return new CBC(iv, true);
+	}
+
+	/**
+	 * Method to create a CBC decoding stream, equivalent to {@link Decrypt#decryptCBC(byte[], byte[])}
+	 * @param iv the pad of size BLOCKSIZE used to start the chain encoding
+	 * @return a new stream cipher
+	 */
+	public static StreamCipher decryptCBC(byte[] iv) {
+		assert(iv != null && iv.length > 0);
+		return new CBC(iv, false);
+	}
+
+	/**
+	 * Method to create the stream used by {@link Encrypt#encrypt(String, String, int)} for a given type
+	 * @param key  the key used to encode
+	 * @param type the method used to encode : 0 = Caesar, 1 = Vigenere, 2 = XOR, 3 = One time pad, 4 = CBC
+	 * @return a new stream cipher
+	 */
+	public static StreamCipher forType(byte[] key, int type) {
+		switch (type) {
+			case Encrypt.CAESAR: // 0
+				return caesar(key[0], false);
+			case Encrypt.VIGENERE: // 1
+				return vigenere(key, false);
+			case Encrypt.XOR: // 2
+				return xor(key[0], false);
+			case Encrypt.ONETIME: // 3
+				return oneTimePad(key);
+			case Encrypt.CBC: // 4
+				return cbc(key);
+			default:
+				throw new IllegalArgumentException("Unknown cipher type : " + type);
+		}
+	}
+
+	/**
+	 * Processes the next chunk of the message. Source and destination may be the same array.
+	 * @param src    the array containing the chunk
+	 * @param srcOff the offset of the chunk in src
+	 * @param len    the length of the chunk
+	 * @param dst    the array the result is written to
+	 * @param dstOff the offset at which the result is written in dst
+	 */
+	public abstract void update(byte[] src, int srcOff, int len, byte[] dst, int dstOff);
+
+	/**
+	 * Processes the next chunk of the message in place
+	 * @param buffer the array containing the chunk
+	 * @param off    the offset of the chunk
+	 * @param len    the length of the chunk
+	 */
+	public void update(byte[] buffer, int off, int len) {
+		update(buffer, off, len, buffer, off);
+	}
+
+	/**
+	 * Processes the remaining bytes of src as the next chunk of the message, writing the result into dst.
+	 * Both positions are moved by the amount of processed bytes, src and dst may be the same buffer.
+	 * @param src the (heap or direct) buffer containing the chunk
+	 * @param dst the (heap or direct) buffer receiving the result, with at least src.remaining() bytes left
+	 */
+	public abstract void update(ByteBuffer src, ByteBuffer dst);
+
+	//-----------------------Implementations-------------------------
+
+	private static final class Caesar extends StreamCipher {
+		private final byte key;
+		private final boolean spaceEncoding;
+
+		Caesar(byte key, boolean spaceEncoding) {
+			this.key = key;
+			this.spaceEncoding = spaceEncoding;
+		}
+
+		@Override
+		public void update(byte[] src, int srcOff, int len, byte[] dst, int dstOff) {
+			Encrypt.caesar(src, srcOff, dst, dstOff, len, key, spaceEncoding);
+		}
+
+		@Override
+		public void update(ByteBuffer src, ByteBuffer dst) {
+			Encrypt.caesar(src, dst, key, spaceEncoding);
+		}
+	}
+
+	private static final class Xor extends StreamCipher {
+		private final byte key;
+		private final boolean spaceEncoding;
+
+		Xor(byte key, boolean spaceEncoding) {
+			this.key = key;
+			this.spaceEncoding = spaceEncoding;
+		}
+
+		@Override
+		public void update(byte[] src, int srcOff, int len, byte[] dst, int dstOff) {
+			Encrypt.xor(src, srcOff, dst, dstOff, len, key, spaceEncoding);
+		}
+
+		@Override
+		public void update(ByteBuffer src, ByteBuffer dst) {
+			Encrypt.xor(src, dst, key, spaceEncoding);
+		}
+	}
+
+	private static final class Vigenere extends StreamCipher {
+		private final byte[] keyword;
+		private final boolean spaceEncoding;
+		// index in the keyword of the next encoded byte
+		private int keyIndex = 0;
+
+		Vigenere(byte[] keyword, boolean spaceEncoding) {
+			this.keyword = keyword;
+			this.spaceEncoding = spaceEncoding;
+		}
+
+		@Override
+		public void update(byte[] src, int srcOff, int len, byte[] dst, int dstOff) {
+			keyIndex = Encrypt.vigenere(src, srcOff, dst, dstOff, len, keyword, keyIndex, spaceEncoding);
+		}
+
+		@Override
+		public void update(ByteBuffer src, ByteBuffer dst) {
+			keyIndex = Encrypt.vigenere(src, dst, keyword, keyIndex, spaceEncoding);
+		}
+	}
+
+	private static final class OneTimePad extends StreamCipher {
+		private final byte[] pad;
+		// position in the pad of the next encoded byte
+		private int padIndex = 0;
+
+		OneTimePad(byte[] pad) {
+			this.pad = pad;
+		}
+
+		@Override
+		public void update(byte[] src, int srcOff, int len, byte[] dst, int dstOff) {
+			Encrypt.oneTimePad(src, srcOff, dst, dstOff, len, pad, padIndex);
+			padIndex += len;
+		}
+
+		@Override
+		public void update(ByteBuffer src, ByteBuffer dst) {
+			int len = src.remaining();
+			Encrypt.oneTimePad(src, dst, pad, padIndex);
+			padIndex += len;
+		}
+	}
+
+	private static final class CBC extends StreamCipher {
+		// last cipher block, progressively replaced by the current one
+		private byte[] chain;
+		// cipher block kept while a chunk is decoded, which may overwrite the cipher text
+		private byte[] nextChain;
+		private final boolean encoding;
+		// position inside the current block
+		private int blockIndex = 0;
+
+		CBC(byte[] iv, boolean encoding) {
+			this.chain = iv.clone();
+			this.nextChain = new byte[iv.length];
+			this.encoding = encoding;
+		}
+
+		@Override
+		public void update(byte[] src, int srcOff, int len, byte[] dst, int dstOff) {
+			// the end of the block started by the previous chunk
+			int head = Math.min(len, (chain.length - blockIndex) % chain.length);
+			for (int i = 0; i < head; i++) {
+				byte in = src[srcOff + i];
+				byte out = (byte) (in ^ chain[blockIndex]);
+				// byte j of the previous block is only used at position j of the current block
+				chain[blockIndex++] = encoding ? out : in;
+				dst[dstOff + i] = out;
+			}
+			if (head == len) {
+				if (blockIndex == chain.length) blockIndex = 0;
+				return;
+			}
+			// the rest starts on a block boundary : it is a whole CBC message whose iv is the last cipher block
+			srcOff += head;
+			dstOff += head;
+			len -= head;
+			if (encoding) {
+				Encrypt.cbc(src, srcOff, dst, dstOff, len, chain);
+				keepLastBlock(dst, dstOff, len, chain);
+			} else {
+				keepLastBlock(src, srcOff, len, nextChain);
+				Decrypt.decryptCBC(src, srcOff, dst, dstOff, len, chain);
+				byte[] used = chain;
+				chain = nextChain;
+				nextChain = used;
+			}
+		}
+
+		/**
+		 * Helper method copying the last cipher block of a chunk into next, the bytes a partial last block
+		 * does not have yet come from the block before it (or from chain if there is none)
+		 */
+		private void keepLastBlock(byte[] cipher, int off, int len, byte[] next) {
+			BlockCursor blocks = new BlockCursor(cipher, off, len, chain.length);
+			blocks.seek(blocks.blockCount());
+			blocks.previous();
+			int tail = blocks.length();
+			System.arraycopy(cipher, blocks.offset(), next, 0, tail);
+			if (tail < chain.length) {
+				if (blocks.previous()) System.arraycopy(cipher, blocks.offset() + tail, next, tail, chain.length - tail);
+				else if (next != chain) System.arraycopy(chain, tail, next, tail, chain.length - tail);
+			}
+			blockIndex = tail % chain.length;
+		}
+
+		@Override
+		public void update(ByteBuffer src, ByteBuffer dst) {
+			int len = src.remaining();
+			int srcPos = src.position();
+			int dstPos = dst.position();
+			if (src.hasArray() && dst.hasArray()) {
+				update(src.array(), src.arrayOffset() + srcPos, len, dst.array(), dst.arrayOffset() + dstPos);
+			} else {
+				for (int i = 0; i < len; i++) {
+					byte in = src.get(srcPos + i);
+					byte out = (byte) (in ^ chain[blockIndex]);
+					chain[blockIndex] = encoding ? out : in;
+					dst.put(dstPos + i, out);
+					if (++blockIndex == chain.length) blockIndex = 0;
+				}
+			}
+			dst.position(dstPos + len);
+			src.position(srcPos + len);
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package crypto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static crypto.Encrypt.SPACE;
+
+/**
+ * Table driven version of {@link Helper#cleanString(String)} : every byte goes through a lookup table of 256 entries
+ * which lower cases the letters, turns the punctuation [:,;.] into spaces and drops everything else,
+ * in a single pass and without regular expressions. The bytes are ISO-8859-1 characters, as for {@link Helper#stringToBytes}.
+ * Each byte is normalized on its own, so a text cut in chunks of any size normalizes to the same bytes as the whole text,
+ * and the output goes to an array or buffer given by the caller, which can be reused from one chunk to the next.
+ */
+public final class TextNormalizer {
+	// marks the bytes which are dropped, no kept byte is 0
+	private static final byte DROP = 0;
+	private static final byte[] TABLE = new byte[256];
+	static {
+		// built with String.toLowerCase so that the table follows the default locale like cleanString does
+		for (int c = 0; c < TABLE.length; c++) {
+			String lower = String.valueOf((char) c).toLowerCase();
+			TABLE[c] = (lower.length() == 1) ? normalized(lower.charAt(0)) : DROP;
+		}
+	}
+
+	private TextNormalizer() {}
+
+	/**
+	 * Method normalizing a string exactly like {@link Helper#cleanString(String)}
+	 * @param s the string to clean
+	 * @return the string cleaned, only made of lower case letters and spaces
+	 */
+	public static String normalize(String s) {
+		byte[] cleaned = new byte[s.length()];
+		int length = 0;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			// out of ISO-8859-1, only a few characters lower case to a letter, like the Kelvin sign or the dotted capital I
+			byte b = (c < TABLE.length) ? TABLE[c] : normalized(Character.toLowerCase(c));
+			if (b != DROP) cleaned[length++] = b;
+		}
+		return new String(cleaned, 0, length, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Method normalizing a byte array into a new one
+	 * @param text the ISO-8859-1 bytes of the text
+	 * @return the normalized bytes, only made of lower case letters and spaces
+	 */
+	public static byte[] normalize(byte[] text) {
+		byte[] cleaned = new byte[text.length];
+		int length = normalize(text, 0, text.length, cleaned, 0);
+		return (length == cleaned.length) ? cleaned : Arrays.copyOf(cleaned, length);
+	}
+
+	/**
+	 * Method normalizing a part of a byte array into a caller supplied array, without any allocation.
+	 * src and dst may be the same array with dstOff <= srcOff, since no more bytes are written than read.
+	 * @param src    the array containing the ISO-8859-1 bytes of the text
+	 * @param srcOff the offset of the first byte to normalize
+	 * @param len    the amount of bytes to normalize
+	 * @param dst    the array receiving the normalized bytes, with at least len bytes left after dstOff,
+	 *               the bytes after the normalized ones may be overwritten up to dstOff + len
+	 * @param dstOff the offset of the first normalized byte in dst
+	 * @return the amount of bytes written in dst
+	 */
+	public static int normalize(byte[] src, int srcOff, int len, byte[] dst, int dstOff) {
+		assert(src != null && dst != null && (src != dst || dstOff <= srcOff));
+		int written = dstOff;
+		for (int i = srcOff; i < srcOff + len; i++) {
+			byte b = TABLE[src[i] & 0xFF];
+			// written without a branch, the position only moves for a kept byte
+			dst[written] = b;
+			written += (b != DROP) ? 1 : 0;
+		}
+		return written - dstOff;
+	}
+
+	/**
+	 * Method normalizing the remaining bytes of a buffer into another (heap or direct) buffer, without any allocation.
+	 * The position of src moves to its limit, and the one of dst by the amount of normalized bytes.
+	 * @param src the buffer containing the ISO-8859-1 bytes of the text
+	 * @param dst the buffer receiving the normalized bytes, with at least src.remaining() bytes left
+	 * @return the amount of bytes written in dst
+	 */
+	public static int normalize(ByteBuffer src, ByteBuffer dst) {
+		int len = src.remaining();
+		int srcPos = src.position();
+		int dstPos = dst.position();
+		int written;
+		if (src.hasArray() && dst.hasArray() && src.array() != dst.array()) {
+			written = normalize(src.array(), src.arrayOffset() + srcPos, len, dst.array(), dst.arrayOffset() + dstPos);
+		} else {
+			assert(dst.remaining() >= len);
+			written = 0;
+			for (int i = 0; i < len; i++) {
+				byte b = TABLE[src.get(srcPos + i) & 0xFF];
+				if (b != DROP) dst.put(dstPos + written++, b);
+			}
+		}
+		dst.position(dstPos + written);
+		src.position(srcPos + len);
+		return written;
+	}
+
+	/**
+	 * @return the normalized byte of a lower cased character, or DROP
+	 */
+	private static byte normalized(char lower) {
+		switch (lower) {
+			case ':': case ',': case ';': case '.': case ' ':
+				return SPACE;
+			default:
+				return (lower >= 'a' && lower <= 'z') ? (byte) lower : DROP;
+		}
+	}
+}
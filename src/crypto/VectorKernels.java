@@ -0,0 +1,61 @@
+package crypto;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import static crypto.Encrypt.SPACE;
+
+/**
+ * Vector backend of {@link ByteKernels}, on the jdk.incubator.vector module : each loop handles a full vector of bytes
+ * at a time (32 or 64 bytes depending on the processor), and keeps the spaces with a masked blend.
+ * This class is only loaded when the module is present, see {@link ByteKernels#VECTOR_ENABLED}.
+ */
+final class VectorKernels {
+	private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+	private VectorKernels() {}
+
+	/**
+	 * @return the amount of bytes of a vector
+	 */
+	static int lanes() {
+		return SPECIES.length();
+	}
+
+	static void vectorCaesar(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte key, boolean spaceEncoding) {
+		int vectors = SPECIES.loopBound(len);
+		for (int i = 0; i < vectors; i += SPECIES.length()) {
+			ByteVector bytes = ByteVector.fromArray(SPECIES, src, srcOff + i);
+			ByteVector shifted = bytes.add(key);
+			if (!spaceEncoding) {
+				VectorMask<Byte> spaces = bytes.eq(SPACE);
+				shifted = shifted.blend(bytes, spaces);
+			}
+			shifted.intoArray(dst, dstOff + i);
+		}
+		ByteKernels.scalarCaesar(src, srcOff + vectors, dst, dstOff + vectors, len - vectors, key, spaceEncoding);
+	}
+
+	static void vectorXor(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte key, boolean spaceEncoding) {
+		int vectors = SPECIES.loopBound(len);
+		for (int i = 0; i < vectors; i += SPECIES.length()) {
+			ByteVector bytes = ByteVector.fromArray(SPECIES, src, srcOff + i);
+			ByteVector xored = bytes.lanewise(VectorOperators.XOR, key);
+			if (!spaceEncoding) xored = xored.blend(bytes, bytes.eq(SPACE));
+			xored.intoArray(dst, dstOff + i);
+		}
+		ByteKernels.scalarXor(src, srcOff + vectors, dst, dstOff + vectors, len - vectors, key, spaceEncoding);
+	}
+
+	static void vectorOneTimePad(byte[] src, int srcOff, byte[] dst, int dstOff, int len, byte[] pad, int padOff) {
+		assert(padOff + len <= pad.length);
+		int vectors = SPECIES.loopBound(len);
+		for (int i = 0; i < vectors; i += SPECIES.length()) {
+			ByteVector bytes = ByteVector.fromArray(SPECIES, src, srcOff + i);
+			bytes.lanewise(VectorOperators.XOR, ByteVector.fromArray(SPECIES, pad, padOff + i)).intoArray(dst, dstOff + i);
+		}
+		ByteKernels.scalarOneTimePad(src, srcOff + vectors, dst, dstOff + vectors, len - vectors, pad, padOff + vectors);
+	}
+}
@@ -0,0 +1,234 @@
+package crypto;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static crypto.Decrypt.ALPHABETSIZE;
+
+/**
+ * Vigenere breaking pipeline working on primitive arrays.
+ * The spaces are removed once into a compact copy of the cipher text, the columns are read with strided loops,
+ * and all the scratch arrays are kept between calls, so that breaking a message only allocates the compact copy
+ * (when a longer message than the previous ones comes in), the key and the clear text.
+ * An instance is not thread safe, each thread should use its own.
+ */
+public class VigenereBreaker {
+	private final int maxKeyLength;
+
+	private byte[] compact = new byte[0];
+	private int[] positions = new int[0];
+	private int length = 0;
+
+	private final int[] counts = new int[ALPHABETSIZE];
+	private final CaesarKeyFinder keyFinder = new CaesarKeyFinder();
+	// detector sharing the scratch arrays of this breaker, created on the first unlabeled message
+	private CipherDetector detector;
+
+	// scratch of the columns broken in parallel by rankKeys
+	private static final ThreadLocal<CaesarKeyFinder> FINDERS = ThreadLocal.withInitial(CaesarKeyFinder::new);
+
+	public VigenereBreaker() {
+		this(Decrypt.MAX_KEY_LENGTH);
+	}
+
+	/**
+	 * @param maxKeyLength the longest key length tried
+	 */
+	public VigenereBreaker(int maxKeyLength) {
+		assert(maxKeyLength > 0);
+		this.maxKeyLength = maxKeyLength;
+	}
+
+	/**
+	 * Method to decode a byte array encoded following the Vigenere pattern (spaces not encoded)
+	 * @param cipher the byte array representing the encoded text
+	 * @return the byte encoding of the clear text
+	 */
+	public byte[] breakCipher(byte[] cipher) {
+		return Encrypt.vigenere(cipher, findKey(cipher));
+	}
+
+	/**
+	 * Method to decode a byte array encoded following the Vigenere pattern, improving the key found with the
+	 * frequencies with a refinement stage, which corrects the columns the frequencies got wrong
+	 * @param cipher  the byte array representing the encoded text
+	 * @param refiner the refinement stage
+	 * @return the byte encoding of the clear text
+	 */
+	public byte[] breakCipher(byte[] cipher, VigenereRefiner refiner) {
+		byte[] key = findKey(cipher);
+		return Encrypt.vigenere(cipher, refiner.refine(compact, length, key));
+	}
+
+	/**
+	 * Method to decode a byte array encoded following the Vigenere pattern without committing to a single key length :
+	 * the best clear text among the ones given by the top candidate lengths is kept
+	 * @param cipher     the byte array representing the encoded text
+	 * @param candidates the amount of key lengths tried
+	 * @param model      the language model scoring the clear texts
+	 * @return the byte encoding of the clear text
+	 */
+	public byte[] breakCipher(byte[] cipher, int candidates, LanguageModel model) {
+		return rankKeys(cipher, candidates, model).get(0).decrypt(cipher);
+	}
+
+	/**
+	 * Method deriving a key for each of the top candidate key lengths and ranking them by the score of their clear text.
+	 * The lengths are handled in parallel, and so are the columns of each key, on the common fork join pool.
+	 * @param cipher     the byte array representing the encoded text, with its spaces
+	 * @param candidates the amount of key lengths tried : the one {@link #findKey(byte[])} would use,
+	 *                   then the best ones according to the key length search
+	 * @param model      the language model scoring the clear texts
+	 * @return the keys, from the best clear text to the worst
+	 */
+	public List<VigenereCandidate> rankKeys(byte[] cipher, int candidates, LanguageModel model) {
+		assert(candidates > 0 && model != null);
+		load(cipher);
+		byte[] text = compact;
+		int textLength = length;
+		List<KeyLengthCandidate> ranked = keyLengthCandidates();
+		// the length the single candidate search would pick always takes part, then the best scored ones
+		IntStream lengths = IntStream.concat(
+				IntStream.of(Decrypt.vigenereBestKeyLength(ranked)),
+				ranked.stream().mapToInt(KeyLengthCandidate::length));
+		return lengths.distinct()
+				.limit(candidates)
+				.parallel()
+				.mapToObj(keyLength -> scoreKey(text, textLength, parallelFindKey(text, textLength, keyLength), model))
+				.sorted()
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Method finding the inverse key of a Vigenere cipher text
+	 * @param cipher the byte array representing the encoded text, with its spaces
+	 * @return the inverse key to decode the Vigenere cipher text
+	 */
+	public byte[] findKey(byte[] cipher) {
+		load(cipher);
+		int keyLength = Decrypt.vigenereBestKeyLength(keyLengthCandidates());
+		return findKey(compact, length, keyLength);
+	}
+
+	/**
+	 * @return the detector guessing the cryptosystem with this breaker, kept for the next messages
+	 */
+	public CipherDetector detector() {
+		if (detector == null) detector = new CipherDetector(this);
+		return detector;
+	}
+
+	/**
+	 * Method removing the spaces of a cipher text into the compact buffer of this breaker
+	 * @param cipher the byte array representing the encoded text, with its spaces
+	 * @return the amount of bytes which are not spaces
+	 */
+	public int load(byte[] cipher) {
+		if (compact.length < cipher.length) {
+			compact = new byte[cipher.length];
+			positions = new int[cipher.length];
+		}
+		length = Decrypt.removeSpaces(cipher, compact, positions);
+		return length;
+	}
+
+	/**
+	 * @return the ranked key lengths of the last loaded cipher text
+	 */
+	public List<KeyLengthCandidate> keyLengthCandidates() {
+		return Decrypt.vigenereKeyLengthCandidates(compact, length, maxKeyLength, counts);
+	}
+
+	/**
+	 * @return the compact buffer, whose first {@link #length()} bytes are the last loaded cipher text without spaces
+	 */
+	public byte[] compact() {
+		return compact;
+	}
+
+	/**
+	 * @return the amount of bytes of the last loaded cipher text without spaces
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * @param index the index of a byte in the compact buffer
+	 * @return the index of the same byte in the last loaded cipher text
+	 */
+	public int position(int index) {
+		assert(index < length);
+		return positions[index];
+	}
+
+	/**
+	 * Method that finds the key of a Caesar encoding by comparing frequencies, as {@link Decrypt#caesarWithFrequencies}
+	 * does, but with the scratch arrays of this breaker. A Caesar cipher is a Vigenere cipher with a single column.
+	 * @param cipher the byte array representing the encoded text
+	 * @return the encoding key
+	 */
+	public byte caesarKey(byte[] cipher) {
+		return columnKey(cipher, 0, 1, cipher.length);
+	}
+
+	/**
+	 * Method that finds the key of a XOR encoding from the byte counts, as {@link Decrypt#xorWithFrequencies} does,
+	 * but with the scratch arrays of this breaker
+	 * @param cipher the byte array representing the encoded text
+	 * @return the key, which also decodes the message
+	 */
+	public byte xorKey(byte[] cipher) {
+		Arrays.fill(counts, 0);
+		for (byte b : cipher) counts[b + 128]++;
+		return Decrypt.xorFindKey(counts);
+	}
+
+	/**
+	 * Method computing each byte of the inverse key with the English frequencies, as {@link Decrypt#vigenereFindKey} does
+	 * @param cipher    the byte array whose first length bytes are the encoded text without space
+	 * @param length    the amount of bytes of the encoded text
+	 * @param keyLength the length of the key we want to find
+	 * @return the inverse key to decode the Vigenere cipher text
+	 */
+	public byte[] findKey(byte[] cipher, int length, int keyLength) {
+		assert(keyLength > 0);
+		// like the original algorithm, only complete rows of the key are used
+		int rows = length / keyLength;
+		byte[] keys = new byte[keyLength];
+		for (int column = 0; column < keyLength; column++) {
+			Decrypt.checkInterrupted();
+			keys[column] = (byte) -columnKey(cipher, column, keyLength, rows);
+		}
+		return keys;
+	}
+
+	/**
+	 * @return the Caesar key of one column of the cipher text
+	 */
+	private byte columnKey(byte[] cipher, int column, int keyLength, int rows) {
+		return keyFinder.findKey(cipher, column, keyLength, rows);
+	}
+
+	/**
+	 * Same as {@link #findKey(byte[], int, int)}, with the columns broken in parallel
+	 */
+	private static byte[] parallelFindKey(byte[] cipher, int length, int keyLength) {
+		int rows = length / keyLength;
+		byte[] keys = new byte[keyLength];
+		IntStream.range(0, keyLength).parallel().forEach(column -> {
+			Decrypt.checkInterrupted();
+			keys[column] = (byte) -FINDERS.get().findKey(cipher, column, keyLength, rows);
+		});
+		return keys;
+	}
+
+	/**
+	 * @return the key with the score of the clear text it gives, computed on the text without spaces as it is decoded
+	 */
+	private static VigenereCandidate scoreKey(byte[] cipher, int length, byte[] key, LanguageModel model) {
+		return new VigenereCandidate(key, model.score(cipher, length, key));
+	}
+}
@@ -0,0 +1,59 @@
+package crypto;
+
+/**
+ * A Vigenere key derived for one of the candidate key lengths, with the language model score of the clear text it gives.
+ * Candidates are ordered from the highest score to the lowest, the shortest key first on equal scores,
+ * since a multiple of the right length gives the same clear text.
+ */
+public final class VigenereCandidate implements Comparable<VigenereCandidate> {
+	private final byte[] key;
+	private final double score;
+
+	/**
+	 * @param key   the inverse key, as given by {@link VigenereBreaker#findKey}
+	 * @param score the score of the resulting clear text
+	 */
+	public VigenereCandidate(byte[] key, double score) {
+		assert(key != null && key.length > 0);
+		this.key = key;
+		this.score = score;
+	}
+
+	/**
+	 * @return the length of the key
+	 */
+	public int keyLength() {
+		return key.length;
+	}
+
+	/**
+	 * @return the inverse key, to apply to the cipher text to decode it
+	 */
+	public byte[] key() {
+		return key.clone();
+	}
+
+	public double score() {
+		return score;
+	}
+
+	/**
+	 * Method decoding a cipher text with this key
+	 * @param cipher the byte array representing the encoded text, with its spaces
+	 * @return the clear text
+	 */
+	public byte[] decrypt(byte[] cipher) {
+		return Encrypt.vigenere(cipher, key);
+	}
+
+	@Override
+	public int compareTo(VigenereCandidate other) {
+		int byScore = Double.compare(other.score, score);
+		return (byScore != 0) ? byScore : Integer.compare(key.length, other.key.length);
+	}
+
+	@Override
+	public String toString() {
+		return key.length + " (" + score + ")";
+	}
+}
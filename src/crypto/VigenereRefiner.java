@@ -0,0 +1,173 @@
+package crypto;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Optional refinement stage of the Vigenere breaking. Starting from the key found column by column with the frequencies,
+ * it hill climbs over the byte of each column, keeping a change when it improves the n-gram fitness of the clear text.
+ * Changing one key byte only changes the clear bytes of its column, so only the grams covering them are scored again.
+ * Several climbs run in parallel, the first one from the given key, the others from randomly perturbed copies of it,
+ * and the best key is kept. The work is bounded both by an amount of sweeps over the key and by a time budget.
+ */
+public class VigenereRefiner {
+	private final LanguageModel model;
+	private final int restarts;
+	private final int maxSweeps;
+	private final long budgetNanos;
+	private final long seed;
+
+	/**
+	 * Creates a refiner using English quadgrams, 4 climbs, at most 50 sweeps each and 200 ms
+	 */
+	public VigenereRefiner() {
+		this(LanguageModel.english(4), 4, 50, 200, TimeUnit.MILLISECONDS, 0);
+	}
+
+	/**
+	 * @param model     the model giving the fitness of a clear text
+	 * @param restarts  the amount of climbs, the first one starts from the given key
+	 * @param maxSweeps the maximum amount of passes over all the columns of the key, per climb
+	 * @param budget    the time after which every climb stops and the best key so far is returned
+	 * @param unit      the unit of the budget
+	 * @param seed      the seed of the random perturbations, so that results are reproducible
+	 */
+	public VigenereRefiner(LanguageModel model, int restarts, int maxSweeps, long budget, TimeUnit unit, long seed) {
+		assert(model != null && restarts > 0 && maxSweeps > 0 && budget > 0);
+		this.model = model;
+		this.restarts = restarts;
+		this.maxSweeps = maxSweeps;
+		this.budgetNanos = unit.toNanos(budget);
+		this.seed = seed;
+	}
+
+	/**
+	 * Method improving the inverse key of a Vigenere cipher text
+	 * @param cipher the byte array whose first length bytes are the encoded text without space
+	 * @param length the amount of bytes of the encoded text
+	 * @param key    the inverse key to start from, as given by {@link VigenereBreaker#findKey}
+	 * @return the best inverse key found, the given one if nothing better was found
+	 */
+	public byte[] refine(byte[] cipher, int length, byte[] key) {
+		assert(cipher != null && length <= cipher.length && key.length > 0);
+		if (length < model.order()) return key.clone();
+		long deadline = System.nanoTime() + budgetNanos;
+		return IntStream.range(0, restarts).parallel()
+				.mapToObj(restart -> new Climb(cipher, length, start(key, restart)).run(deadline))
+				.reduce((a, b) -> (b.fitness > a.fitness) ? b : a)
+				.get().key;
+	}
+
+	/**
+	 * @return the key a climb starts from : the given one for the first climb, a perturbed copy for the others
+	 */
+	private byte[] start(byte[] key, int restart) {
+		byte[] start = key.clone();
+		if (restart == 0) return start;
+		Random random = new Random(seed + restart);
+		int changes = 1 + random.nextInt(Math.max(1, key.length / 2));
+		for (int i = 0; i < changes; i++) start[random.nextInt(key.length)] = (byte) random.nextInt(256);
+		return start;
+	}
+
+	/**
+	 * State of a single hill climb : the clear text under the current key and the score of each of its grams
+	 */
+	private final class Climb {
+		private final byte[] cipher;
+		private final int length;
+		private final byte[] key;
+		private final byte[] plain;
+		// score of the gram starting at each position
+		private final float[] grams;
+		private final int order;
+		private double fitness;
+
+		Climb(byte[] cipher, int length, byte[] key) {
+			this.cipher = cipher;
+			this.length = length;
+			this.key = key;
+			this.order = model.order();
+			this.plain = new byte[length];
+			this.grams = new float[length - order + 1];
+			for (int i = 0; i < length; i++) plain[i] = (byte) (cipher[i] + key[i % key.length]);
+			for (int start = 0; start < grams.length; start++) {
+				grams[start] = gramScore(start, -1, (byte) 0);
+				fitness += grams[start];
+			}
+		}
+
+		Climb run(long deadline) {
+			for (int sweep = 0; sweep < maxSweeps; sweep++) {
+				boolean improved = false;
+				for (int column = 0; column < key.length; column++) {
+					if (System.nanoTime() > deadline) return this;
+					Decrypt.checkInterrupted();
+					improved |= climbColumn(column);
+				}
+				if (!improved) break;
+			}
+			return this;
+		}
+
+		/**
+		 * Helper method trying every byte for one column of the key and keeping the best one
+		 * @return true if the key changed
+		 */
+		private boolean climbColumn(int column) {
+			int bestByte = key[column];
+			double bestDelta = 0;
+			for (int candidate = 0; candidate < Decrypt.ALPHABETSIZE; candidate++) {
+				if ((byte) candidate == key[column]) continue;
+				double delta = delta(column, (byte) candidate, false);
+				if (delta > bestDelta) {
+					bestDelta = delta;
+					bestByte = candidate;
+				}
+			}
+			if (bestByte == key[column]) return false;
+			delta(column, (byte) bestByte, true);
+			key[column] = (byte) bestByte;
+			for (int i = column; i < length; i += key.length) plain[i] = (byte) (cipher[i] + key[column]);
+			fitness += bestDelta;
+			return true;
+		}
+
+		/**
+		 * Helper method computing the change of fitness if a column of the key was changed,
+		 * only going through the grams which contain a byte of that column
+		 * @param apply if true, the scores of the grams are updated
+		 */
+		private double delta(int column, byte candidate, boolean apply) {
+			double delta = 0;
+			int next = 0;
+			for (int i = column; i < length; i += key.length) {
+				int first = Math.max(next, i - order + 1);
+				int last = Math.min(i, grams.length - 1);
+				for (int start = first; start <= last; start++) {
+					float score = gramScore(start, column, candidate);
+					delta += score - grams[start];
+					if (apply) grams[start] = score;
+				}
+				next = Math.max(next, last + 1);
+			}
+			return delta;
+		}
+
+		/**
+		 * Helper method scoring the gram starting at a position, with the bytes of one column decoded by a candidate key byte
+		 * (no column is replaced when column is -1). A gram with a byte which is not a letter gets the floor.
+		 */
+		private float gramScore(int start, int column, byte candidate) {
+			int gram = 0;
+			for (int i = start; i < start + order; i++) {
+				byte b = (column >= 0 && i % key.length == column) ? (byte) (cipher[i] + candidate) : plain[i];
+				int letter = b - 'a';
+				if (letter < 0 || letter >= 26) return model.floor();
+				gram = gram * 26 + letter;
+			}
+			return model.logProbability(gram);
+		}
+	}
+}